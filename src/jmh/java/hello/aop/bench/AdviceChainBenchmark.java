@@ -0,0 +1,106 @@
+package hello.aop.bench;
+
+import hello.aop.order.aop.AspectV1;
+import hello.aop.order.aop.AspectV2;
+import hello.aop.order.aop.AspectV3;
+import hello.aop.order.aop.AspectV4Pointcut;
+import hello.aop.order.aop.AspectV5Order;
+import hello.aop.order.aop.AspectV6Advice;
+import hello.aop.order.bench.OrderItemRepositoryImpl;
+import hello.aop.order.bench.OrderItemService;
+import hello.aop.order.bench.OrderItemServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 한 번(OrderService.orderItem 과 같은 호출)에 애스펙트(AspectV1 ~ AspectV6Advice)가 더하는 비용
+ *  - aspect=NONE 은 프록시 없는 기준값
+ *  - proxy=CGLIB / JDK 는 spring.aop.proxy-target-class=true / false 와 같은 설정으로 컨텍스트를 만든다.
+ *    OrderService 는 인터페이스가 없어서 JDK 설정이어도 CGLIB 프록시가 되므로, 인터페이스가 있는 OrderItemService 로 잰다.
+ *    setUp 에서 실제로 만들어진 프록시 종류가 proxy 값과 같은지 확인한다.
+ *  - 로그 출력 비용을 빼고 어드바이스 체인만 재려고 jmh 의 logback.xml 은 WARN 이다. (log.info 는 레벨 확인만 하고 끝난다)
+ *
+ * 실행: ./gradlew jmh (ns/op 와 함께 gc 프로파일러의 gc.alloc.rate.norm 으로 호출당 할당 바이트가 나온다)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdviceChainBenchmark {
+
+    public enum Aspect {
+        NONE(),
+        V1(AspectV1.class),
+        V2(AspectV2.class),
+        V3(AspectV3.class),
+        V4(AspectV4Pointcut.class),
+        V5(AspectV5Order.LogAspect.class, AspectV5Order.TxAspect.class),
+        V6(AspectV6Advice.class);
+
+        private final Class<?>[] classes;
+
+        Aspect(Class<?>... classes) {
+            this.classes = classes;
+        }
+    }
+
+    public enum Proxy {CGLIB, JDK}
+
+    @Param
+    Aspect aspect;
+
+    @Param
+    Proxy proxy;
+
+    private AnnotationConfigApplicationContext context;
+    private OrderItemService orderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        if (aspect != Aspect.NONE) {
+            AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+            if (proxy == Proxy.CGLIB) {
+                AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+            }
+            context.register(aspect.classes);
+        }
+        context.register(OrderItemRepositoryImpl.class, OrderItemServiceImpl.class);
+        context.refresh();
+
+        orderService = context.getBean(OrderItemService.class);
+        boolean expected = aspect == Aspect.NONE ? !AopUtils.isAopProxy(orderService)
+                : proxy == Proxy.JDK ? AopUtils.isJdkDynamicProxy(orderService) : AopUtils.isCglibProxy(orderService);
+        if (!expected) {
+            throw new IllegalStateException("unexpected proxy state: aspect=" + aspect + " proxy=" + proxy + " " + orderService.getClass());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void orderItem() {
+        orderService.orderItem("itemA");
+    }
+}
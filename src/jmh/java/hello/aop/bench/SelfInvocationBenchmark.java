@@ -0,0 +1,90 @@
+package hello.aop.bench;
+
+import hello.aop.exam.support.SelfProxyBeanPostProcessor;
+import hello.aop.internalcall.CallServiceV1;
+import hello.aop.internalcall.CallServiceV2;
+import hello.aop.internalcall.CallServiceV3;
+import hello.aop.internalcall.CallServiceV4;
+import hello.aop.internalcall.InternalService;
+import hello.aop.internalcall.aop.CallLogAspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 내부 호출 대안별 external() 한 번의 비용 (CallLogAspect 가 external, internal 양쪽에 적용된다)
+ *  - V1: 자기 자신 setter 주입 (순환 참조 허용 필요)
+ *  - V2: 호출마다 ObjectProvider.getObject() 로 컨테이너 조회
+ *  - V3: InternalService 로 분리
+ *  - V4: @SelfProxy 로 한 번만 주입
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SelfInvocationBenchmark {
+
+    public enum Version {V1, V2, V3, V4}
+
+    @Param
+    Version version;
+
+    private AnnotationConfigApplicationContext context;
+    private CallServiceV1 callServiceV1;
+    private CallServiceV2 callServiceV2;
+    private CallServiceV3 callServiceV3;
+    private CallServiceV4 callServiceV4;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+        AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+        context.register(CallLogAspect.class, SelfProxyBeanPostProcessor.class,
+                CallServiceV1.class, CallServiceV2.class, CallServiceV3.class, InternalService.class, CallServiceV4.class);
+        context.refresh();
+
+        callServiceV1 = context.getBean(CallServiceV1.class);
+        callServiceV2 = context.getBean(CallServiceV2.class);
+        callServiceV3 = context.getBean(CallServiceV3.class);
+        callServiceV4 = context.getBean(CallServiceV4.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void external() {
+        switch (version) {
+            case V1:
+                callServiceV1.external();
+                break;
+            case V2:
+                callServiceV2.external();
+                break;
+            case V3:
+                callServiceV3.external();
+                break;
+            default:
+                callServiceV4.external();
+        }
+    }
+}
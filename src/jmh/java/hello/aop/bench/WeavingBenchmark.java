@@ -0,0 +1,110 @@
+package hello.aop.bench;
+
+import hello.aop.internalcall.CallServiceV0;
+import hello.aop.internalcall.aop.CallLogAspect;
+import hello.aop.order.OrderRepository;
+import hello.aop.order.OrderService;
+import hello.aop.order.aop.AspectV6Advice;
+import org.aspectj.lang.Aspects;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 애스펙트(AspectV6Advice, CallLogAspect)를 CGLIB 프록시로 적용했을 때와 로드 타임 위빙(META-INF/aop.xml)으로 적용했을 때
+ *  - cglib: 에이전트 없이 포크, 스프링 컨텍스트가 프록시를 만든다.
+ *  - ltw: -javaagent 로 포크, 스프링 없이 new 로 만든 객체에 어드바이스가 들어가 있다. (./gradlew jmh 가 에이전트를 build/aspectj 에 둔다)
+ *  - callExternal 은 external() 안에서 internal() 을 부른다. cglib 은 external 에만, ltw 는 둘 다 어드바이스가 실행된다.
+ *    (ltw 쪽이 어드바이스를 한 번 더 실행하고도 어떤지 보는 것)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WeavingBenchmark {
+
+    private static final String AGENT = "-javaagent:build/aspectj/aspectjweaver.jar";
+    private static final String ADD_OPENS = "--add-opens=java.base/java.lang=ALL-UNNAMED";
+
+    @State(Scope.Benchmark)
+    public static class Proxied {
+
+        AnnotationConfigApplicationContext context;
+        OrderService orderService;
+        CallServiceV0 callService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new AnnotationConfigApplicationContext();
+            AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+            AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+            context.register(AspectV6Advice.class, CallLogAspect.class, OrderRepository.class, OrderService.class, CallServiceV0.class);
+            context.refresh();
+
+            orderService = context.getBean(OrderService.class);
+            callService = context.getBean(CallServiceV0.class);
+            if (!AopUtils.isCglibProxy(orderService) || !AopUtils.isCglibProxy(callService)) {
+                throw new IllegalStateException("unexpected proxy state: " + orderService.getClass());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Woven {
+
+        OrderService orderService;
+        CallServiceV0 callService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            if (!Aspects.hasAspect(AspectV6Advice.class) || !Aspects.hasAspect(CallLogAspect.class)) {
+                throw new IllegalStateException("not woven, run with " + AGENT);
+            }
+            orderService = new OrderService(new OrderRepository());
+            callService = new CallServiceV0();
+        }
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void orderItemCglib(Proxied proxied) {
+        proxied.orderService.orderItem("itemA");
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {AGENT, ADD_OPENS})
+    public void orderItemLtw(Woven woven) {
+        woven.orderService.orderItem("itemA");
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void callExternalCglib(Proxied proxied) {
+        proxied.callService.external();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {AGENT, ADD_OPENS})
+    public void callExternalLtw(Woven woven) {
+        woven.callService.external();
+    }
+}
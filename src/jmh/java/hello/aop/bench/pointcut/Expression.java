@@ -0,0 +1,34 @@
+package hello.aop.bench.pointcut;
+
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+
+/**
+ * hello.aop.pointcut 테스트들이 다루는 포인트컷 종류별 대표 표현식
+ */
+public enum Expression {
+
+    EXECUTION_EXACT("execution(public String hello.aop.synthetic.Synthetic0Service.m0(String))"),
+    EXECUTION_PACKAGE("execution(* hello.aop.synthetic..*(..))"),
+    EXECUTION_SERVICE("execution(* *..*Service.*(..))"),
+    WITHIN("within(hello.aop.synthetic..*)"),
+    AT_ANNOTATION("@annotation(hello.aop.member.annotation.MethodAop)"),
+    ARGS("args(String, ..)"),
+    THIS("this(hello.aop.bench.pointcut.SyntheticTarget)"),
+    TARGET("target(hello.aop.bench.pointcut.SyntheticTarget)"),
+    AT_TARGET("@target(hello.aop.member.annotation.ClassAop)");
+
+    final String expression;
+
+    Expression(String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * 합성 클래스는 별도 클래스 로더에 있으므로, 타입 이름을 풀 수 있도록 합성 클래스를 선언 범위로 넘긴다.
+     */
+    AspectJExpressionPointcut pointcut(Class<?> declarationScope) {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut(declarationScope, new String[0], new Class<?>[0]);
+        pointcut.setExpression(expression);
+        return pointcut;
+    }
+}
@@ -0,0 +1,85 @@
+package hello.aop.bench.pointcut;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 정적 매칭: 프록시를 만들 때 AopUtils.canApply 가 클래스마다, 메서드마다 부르는 matches(Method, Class)
+ *  - cold: 포인트컷을 새로 만들어서 합성 클래스의 모든 메서드를 한 번씩 매칭 (컨텍스트 시작 비용에 가깝다)
+ *  - cached: 같은 포인트컷으로 다시 매칭. AspectJExpressionPointcut 은 메서드별 결과(ShadowMatch)를 캐시한다.
+ * 점수는 전체 메서드(methods 개)를 한 번 훑는 데 걸린 시간이다.
+ * 클래스 정보는 AspectJ 리플렉션 월드가 클래스 로더 단위로 캐시하므로 cold 도 클래스 로딩/분석 비용은 포함하지 않는다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PointcutMatchBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    int methods;
+
+    @Param
+    Expression expression;
+
+    private Method[] targetMethods;
+    private Class<?>[] targetClasses;
+    private AspectJExpressionPointcut cached;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Method> allMethods = new ArrayList<>();
+        List<Class<?>> allClasses = new ArrayList<>();
+        for (Class<?> type : SyntheticClasses.generate(methods)) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.getName().startsWith("m")) {
+                    allMethods.add(method);
+                    allClasses.add(type);
+                }
+            }
+        }
+        targetMethods = allMethods.toArray(new Method[0]);
+        targetClasses = allClasses.toArray(new Class<?>[0]);
+
+        cached = expression.pointcut(targetClasses[0]);
+        scan(cached);
+    }
+
+    @Benchmark
+    public int cold() {
+        return scan(expression.pointcut(targetClasses[0]));
+    }
+
+    @Benchmark
+    public int cached() {
+        return scan(cached);
+    }
+
+    private int scan(AspectJExpressionPointcut pointcut) {
+        int matched = 0;
+        for (int i = 0; i < targetMethods.length; i++) {
+            if (pointcut.getClassFilter().matches(targetClasses[i]) && pointcut.matches(targetMethods[i], targetClasses[i])) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
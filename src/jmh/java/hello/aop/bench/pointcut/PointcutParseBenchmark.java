@@ -0,0 +1,46 @@
+package hello.aop.bench.pointcut;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 포인트컷 표현식 파싱 비용 (애스펙트마다, 컨텍스트 시작 때 한 번씩 낸다)
+ * AspectJExpressionPointcut 은 처음 쓰일 때 파싱하므로 getClassFilter().matches() 한 번까지 잰다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PointcutParseBenchmark {
+
+    @Param
+    Expression expression;
+
+    private Class<?> targetClass;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        targetClass = SyntheticClasses.generate(SyntheticClasses.METHODS_PER_CLASS).get(0);
+    }
+
+    @Benchmark
+    public boolean parse() {
+        AspectJExpressionPointcut pointcut = expression.pointcut(targetClass);
+        return pointcut.getClassFilter().matches(targetClass);
+    }
+}
@@ -0,0 +1,67 @@
+package hello.aop.bench.pointcut;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 호출마다 내는 포인트컷 비용
+ * 합성 클래스(@ClassAop 가 붙은 Synthetic0Service) 하나를 아무 일도 하지 않는 인터셉터로 프록시해서 call() 을 부른다.
+ *  - execution/within/@annotation 처럼 정적으로 결정되는 포인트컷은 프록시를 만들 때 판단이 끝난다.
+ *  - this/target/@target (그리고 정적으로 확정되지 않는 args) 는 호출마다 동적 검사(matches(Method, Class, args))를 한다.
+ * 동적 검사가 this/target 을 읽을 수 있도록 AspectJ 애스펙트처럼 ExposeInvocationInterceptor 를 맨 앞에 둔다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PointcutRuntimeBenchmark {
+
+    @Param
+    Expression expression;
+
+    private SyntheticTarget target;
+    private SyntheticTarget proxy;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        target = (SyntheticTarget) SyntheticClasses.generate(SyntheticClasses.METHODS_PER_CLASS).get(0)
+                .getDeclaredConstructor().newInstance();
+
+        AspectJExpressionPointcut pointcut = expression.pointcut(target.getClass());
+
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(ExposeInvocationInterceptor.ADVISOR);
+        factory.addAdvisor(new DefaultPointcutAdvisor(pointcut, (MethodInterceptor) invocation -> invocation.proceed()));
+        proxy = (SyntheticTarget) factory.getProxy(target.getClass().getClassLoader());
+    }
+
+    @Benchmark
+    public String unproxied() {
+        return target.call("item");
+    }
+
+    @Benchmark
+    public String proxied() {
+        return proxy.call("item");
+    }
+}
@@ -0,0 +1,115 @@
+package hello.aop.bench.pointcut;
+
+import hello.aop.member.annotation.ClassAop;
+import hello.aop.member.annotation.MethodAop;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 포인트컷 매칭 벤치마크용 합성 클래스 (스프링에 들어 있는 ASM 으로 바이트코드를 직접 만든다)
+ *  - hello.aop.synthetic.Synthetic{n}Service / Synthetic{n}Repository 를 번갈아 만든다. (*Service 패턴이 절반만 맞도록)
+ *  - 클래스마다 METHODS_PER_CLASS 개의 메서드. 모양은 3가지를 돌아가며 쓴다.
+ *      String m{i}(String), long m{i}(long), void m{i}(String, int)
+ *  - 메서드 5개 중 1개에 @MethodAop, 클래스 10개 중 1개에 @ClassAop
+ *  - 모든 클래스는 SyntheticTarget 을 구현한다.
+ */
+public final class SyntheticClasses {
+
+    public static final String PACKAGE = "hello.aop.synthetic";
+    public static final int METHODS_PER_CLASS = 100;
+
+    private static final String TARGET = Type.getInternalName(SyntheticTarget.class);
+    private static final String CLASS_AOP = Type.getDescriptor(ClassAop.class);
+    private static final String METHOD_AOP = Type.getDescriptor(MethodAop.class);
+
+    private SyntheticClasses() {
+    }
+
+    /**
+     * 메서드가 모두 methodCount 개가 되도록 클래스를 만들어 새 클래스 로더에 올린다.
+     */
+    public static List<Class<?>> generate(int methodCount) {
+        Loader loader = new Loader(SyntheticClasses.class.getClassLoader());
+        List<Class<?>> classes = new ArrayList<>();
+        int classCount = (methodCount + METHODS_PER_CLASS - 1) / METHODS_PER_CLASS;
+        for (int c = 0; c < classCount; c++) {
+            String name = PACKAGE + ".Synthetic" + c + (c % 2 == 0 ? "Service" : "Repository");
+            int methods = Math.min(METHODS_PER_CLASS, methodCount - c * METHODS_PER_CLASS);
+            classes.add(loader.define(name, bytes(name.replace('.', '/'), methods, c % 10 == 0)));
+        }
+        return classes;
+    }
+
+    private static byte[] bytes(String internalName, int methods, boolean classAop) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null,
+                "java/lang/Object", new String[]{TARGET});
+        if (classAop) {
+            writer.visitAnnotation(CLASS_AOP, true).visitEnd();
+        }
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor call = writer.visitMethod(Opcodes.ACC_PUBLIC, "call", "(Ljava/lang/String;)Ljava/lang/String;", null, null);
+        call.visitCode();
+        call.visitVarInsn(Opcodes.ALOAD, 1);
+        call.visitInsn(Opcodes.ARETURN);
+        call.visitMaxs(0, 0);
+        call.visitEnd();
+
+        for (int i = 0; i < methods; i++) {
+            String descriptor;
+            switch (i % 3) {
+                case 0: descriptor = "(Ljava/lang/String;)Ljava/lang/String;"; break;
+                case 1: descriptor = "(J)J"; break;
+                default: descriptor = "(Ljava/lang/String;I)V";
+            }
+            MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "m" + i, descriptor, null, null);
+            if (i % 5 == 0) {
+                AnnotationVisitor annotation = method.visitAnnotation(METHOD_AOP, true);
+                annotation.visit("value", "synthetic");
+                annotation.visitEnd();
+            }
+            method.visitCode();
+            switch (i % 3) {
+                case 0:
+                    method.visitVarInsn(Opcodes.ALOAD, 1);
+                    method.visitInsn(Opcodes.ARETURN);
+                    break;
+                case 1:
+                    method.visitVarInsn(Opcodes.LLOAD, 1);
+                    method.visitInsn(Opcodes.LRETURN);
+                    break;
+                default:
+                    method.visitInsn(Opcodes.RETURN);
+            }
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static final class Loader extends ClassLoader {
+
+        Loader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
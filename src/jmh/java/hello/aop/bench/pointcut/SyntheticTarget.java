@@ -0,0 +1,9 @@
+package hello.aop.bench.pointcut;
+
+/**
+ * 합성 클래스가 모두 구현하는 인터페이스 (벤치마크 코드가 합성 클래스를 컴파일 타임에 몰라도 호출할 수 있게)
+ */
+public interface SyntheticTarget {
+
+    String call(String value);
+}
@@ -0,0 +1,9 @@
+package hello.aop.order.bench;
+
+/**
+ * AdviceChainBenchmark 용 인터페이스 타입 저장소 (JDK 설정이면 저장소도 JDK 동적 프록시가 된다)
+ */
+public interface OrderItemRepository {
+
+    String save(String itemId);
+}
@@ -0,0 +1,21 @@
+package hello.aop.order.bench;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * OrderRepository 와 같은 일을 하는 구현
+ */
+public class OrderItemRepositoryImpl implements OrderItemRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderItemRepositoryImpl.class);
+
+    @Override
+    public String save(String itemId) {
+        log.info("[orderRepository] 실행");
+        if (itemId.equals("ex")) {
+            throw new IllegalStateException("예외 발생!");
+        }
+        return "ok";
+    }
+}
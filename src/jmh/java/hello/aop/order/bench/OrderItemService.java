@@ -0,0 +1,10 @@
+package hello.aop.order.bench;
+
+/**
+ * AdviceChainBenchmark 용 인터페이스 타입 대상 (JDK 동적 프록시를 만들 수 있게)
+ * hello.aop.order 아래에 있고 이름이 *Service 라서 AspectV1 ~ AspectV6Advice 의 포인트컷에 OrderService 와 똑같이 걸린다.
+ */
+public interface OrderItemService {
+
+    void orderItem(String itemId);
+}
@@ -0,0 +1,24 @@
+package hello.aop.order.bench;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * OrderService 와 같은 일을 하는 구현 (애노테이션 없이 저장소만 부른다)
+ */
+public class OrderItemServiceImpl implements OrderItemService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderItemServiceImpl.class);
+
+    private final OrderItemRepository orderItemRepository;
+
+    public OrderItemServiceImpl(OrderItemRepository orderItemRepository) {
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    @Override
+    public void orderItem(String itemId) {
+        log.info("[orderService] 실행");
+        orderItemRepository.save(itemId);
+    }
+}
@@ -1,19 +1,30 @@
 package hello.aop.exam;
 
+import hello.aop.exam.annotation.Bulkhead;
+import hello.aop.exam.annotation.CircuitBreaker;
+import hello.aop.exam.annotation.Hedge;
 import hello.aop.exam.annotation.Retry;
 import hello.aop.exam.annotation.Trace;
+import hello.aop.exam.trace.TraceExecutors;
 import org.springframework.stereotype.Repository;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Repository
 public class ExamRepository {
 
     private static int seq = 0;
+    private static int asyncSeq = 0;
+    private static final AtomicInteger findSeq = new AtomicInteger();
 
     /**
      * 5번에 1번 실패하는 요청
      */
     @Trace
     @Retry(4) // 생략하면 Retry에 default로 지정한 값이 적용 (이 메서드에서 문제가 발생하면 4번 재시도 한다.)
+    @CircuitBreaker // 실패율이 50%를 넘으면 회로를 연다. (여기서는 20%라 열리지 않는다)
+    @Bulkhead(maxConcurrent = 10, maxWait = 100) // 동시에 10개까지만 저장소를 쓴다.
     public String save(String itemId) {
         seq++;
         if (seq % 5 == 0) {
@@ -21,4 +32,33 @@ public class ExamRepository {
         }
         return "ok";
     }
+
+    /**
+     * 비동기 버전: 5번에 1번 future 가 실패로 끝난다.
+     * (공용 풀에서 실행되어도 호출한 쪽의 트레이스 컨텍스트가 따라가도록 TraceExecutors 로 실행한다)
+     */
+    @Retry(value = 4, delay = 10, jitter = Retry.Jitter.FULL)
+    public CompletableFuture<String> saveAsync(String itemId) {
+        return TraceExecutors.supplyAsync(() -> {
+            synchronized (ExamRepository.class) {
+                asyncSeq++;
+                if (asyncSeq % 5 == 0) {
+                    throw new IllegalStateException("예외 발생");
+                }
+            }
+            return "ok";
+        });
+    }
+
+    /**
+     * 조회: 5번에 1번 아주 늦게 응답하는 요청 (꼬리 지연)
+     * 50ms 안에 응답이 없으면 헤지 요청을 한 번 더 보낸다.
+     */
+    @Hedge(delay = 50, maxHedgeRatio = 0.5)
+    public String find(String itemId) throws InterruptedException {
+        if (findSeq.incrementAndGet() % 5 == 0) {
+            Thread.sleep(1000);
+        }
+        return "ok";
+    }
 }
@@ -1,9 +1,12 @@
 package hello.aop.exam;
 
+import hello.aop.exam.annotation.Timeout;
 import hello.aop.exam.annotation.Trace;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @RequiredArgsConstructor
 public class ExamService {
@@ -11,7 +14,14 @@ public class ExamService {
     private final ExamRepository examRepository;
 
     @Trace // 제작한 로그출력용 AOP 삽입: 이제 메서드 호출 정보를 AOP를 사용해서 로그로 남길 수 있다.
+    @Timeout(1000) // 재시도까지 포함해서 1초 안에 끝나야 한다.
     public void request(String itemId) {
         examRepository.save(itemId);
     }
+
+    @Trace
+    @Timeout(1000)
+    public CompletableFuture<String> requestAsync(String itemId) {
+        return examRepository.saveAsync(itemId);
+    }
 }
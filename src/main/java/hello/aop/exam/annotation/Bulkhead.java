@@ -0,0 +1,34 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 벌크헤드(격벽) AOP
+ * 메서드(또는 같은 name 을 쓰는 메서드 묶음)의 동시 실행 수를 maxConcurrent 로 제한한다.
+ * 느린 저장소 하나가 컨테이너의 스레드를 전부 잡아먹지 못하게 격리하는 것이 목적이다.
+ *
+ * 모드
+ *  - SEMAPHORE : 호출 스레드에서 실행한다. 자리가 없으면 maxWait(ms) 까지 기다리고, 그래도 없으면 거절한다.
+ *  - THREAD_POOL : 전용 풀(스레드 maxConcurrent 개, 대기열 queueCapacity)에서 실행한다.
+ *                  대기열이 가득 차거나 대기열에서 maxWait 이상 기다린 작업은 거절한다.
+ * 거절되면 BulkheadFullException 을 던진다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    int maxConcurrent() default 10;
+
+    long maxWait() default 0; // 자리를 기다리는 최대 시간(ms), 0 이면 기다리지 않는다
+
+    String name() default ""; // 같은 이름끼리 한도를 공유한다, 비어 있으면 메서드별
+
+    Mode mode() default Mode.SEMAPHORE;
+
+    int queueCapacity() default 10; // THREAD_POOL 모드의 대기열 크기
+
+    enum Mode {SEMAPHORE, THREAD_POOL}
+}
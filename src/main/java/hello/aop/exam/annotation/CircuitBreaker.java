@@ -0,0 +1,30 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 서킷 브레이커 AOP
+ * 최근 window(ms) 동안의 실패율이 failureRateThreshold(%) 이상이면 회로를 연다(OPEN).
+ * 열려 있는 동안은 대상을 호출하지 않고 바로 CallNotPermittedException 을 던진다.
+ * openDuration(ms) 이 지나면 반열림(HALF_OPEN) 상태에서 halfOpenCalls 만큼만 시험 호출을 보내고,
+ * 모두 성공하면 다시 닫고(CLOSED) 하나라도 실패하면 다시 연다.
+ *
+ * @Retry 와 같이 쓰면 재시도 한 번 한 번이 모두 실패율 계산에 들어간다. (RetryAspect 가 바깥, CircuitBreakerAspect 가 안쪽)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CircuitBreaker {
+
+    int failureRateThreshold() default 50; // 회로를 여는 실패율(%)
+
+    int minimumCalls() default 10; // 실패율을 따지기 위한 최소 호출 수
+
+    long window() default 10000; // 실패율을 계산하는 슬라이딩 윈도우 길이(ms)
+
+    long openDuration() default 5000; // OPEN 을 유지하는 시간(ms)
+
+    int halfOpenCalls() default 3; // HALF_OPEN 에서 허용할 시험 호출 수
+}
@@ -0,0 +1,23 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 헤지(hedged request) AOP
+ * 첫 시도가 delay(ms) 안에 끝나지 않으면 같은 호출을 한 번 더 보내고, 먼저 성공한 결과를 돌려준다. 늦은 쪽은 취소한다.
+ * delay 를 지정하지 않으면(-1) 이 메서드의 실시간 지연 분포에서 percentile 값을 기다린다.
+ * 같은 호출을 두 번 보내도 안전한 조회성 메서드에만 붙여야 한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Hedge {
+
+    long delay() default -1; // 헤지 요청을 보내기 전 기다리는 시간(ms), -1 이면 percentile 사용
+
+    int percentile() default 95; // delay 가 -1 일 때 사용할 지연 백분위
+
+    double maxHedgeRatio() default 0.1; // 전체 호출 대비 헤지 요청 비율 상한 (0.1 = 10%)
+}
@@ -0,0 +1,15 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 트레이스/로그에 toString() 을 그대로 남겨도 되는 타입이나 파라미터 (toString 이 짧고 싸다는 약속)
+ * 붙이지 않은 타입은 ArgsRenderer 가 toString() 을 부르지 않고 "타입이름@해시" 만 남긴다.
+ */
+@Target({ElementType.TYPE, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Printable {
+}
@@ -0,0 +1,24 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 처리율 제한 AOP
+ * 초당 permitsPerSecond 번까지만 호출을 허용하고, 넘치면 RateLimitExceededException 을 던진다.
+ *  - key 가 비어 있으면 메서드 전체에 한도 하나를 둔다.
+ *  - key 에 "#itemId" 같은 SpEL 을 쓰면 인수로 만든 키마다 따로 한도를 둔다. ("#p0", "#a0" 도 가능)
+ *  - burst 는 쉬고 있던 키가 한꺼번에 쓸 수 있는 최대 호출 수다. (0 이면 permitsPerSecond 와 같게)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    double permitsPerSecond();
+
+    String key() default "";
+
+    int burst() default 0;
+}
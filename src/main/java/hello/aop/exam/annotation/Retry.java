@@ -9,9 +9,46 @@ import java.lang.annotation.Target;
  * 재시도 AOP
  * 이번에는 좀 더 의미있는 재시도 AOP를 만들어보자.
  * @Retry 애노테이션이 있으면 예외가 발생했을 때 다시 시도해서 문제를 복구한다.
+ *
+ * 백오프
+ *  - delay 를 지정하면 재시도 사이에 대기한다. (기본값 0 이면 예전처럼 바로 재시도)
+ *  - 대기 시간은 delay * multiplier^(n-1) 로 늘어나고 maxDelay 를 넘지 않는다.
+ *  - jitter 로 대기 시간을 흩뿌려서 여러 호출자가 동시에 다시 몰리는 것을 막는다.
+ *  - 동기 메서드는 대기하는 동안 호출 스레드가 잔다. CompletionStage 를 돌려주는 메서드만 스레드를 붙잡지 않고 기다린다.
+ *
+ * 재시도 예산
+ *  - 메서드마다 토큰 버킷을 두고, 성공한 호출의 budgetRatio 비율만큼만 재시도를 허용한다.
+ *  - 예산이 바닥나면 재시도하지 않고 바로 실패한다. budgetCapacity 가 0 이하이면 예산을 쓰지 않는다.
+ *
+ * 예외 분류
+ *  - retryOn 에 해당하는 예외만 재시도하고, noRetryOn 에 해당하면 retryOn 보다 우선해서 재시도하지 않는다.
+ *  - 예) @Retry(value = 4, noRetryOn = IllegalArgumentException.class) : 검증 오류는 다시 해도 실패하므로 바로 던진다.
+ *  - 보호 장치가 거절한 호출(CallRejectedException)은 설정과 관계없이 재시도하지 않는다.
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Retry {
     int value() default 3; // 이 애노테이션에는 재시도 횟수로 사용할 값이 있다. 기본값으로 3 을 사용한다.
+
+    long delay() default 0; // 첫 재시도 전 대기 시간(ms)
+
+    double multiplier() default 2.0; // 재시도마다 대기 시간에 곱하는 값
+
+    long maxDelay() default 1000; // 대기 시간 상한(ms)
+
+    Jitter jitter() default Jitter.NONE;
+
+    double budgetRatio() default 0.2; // 성공 1회당 적립되는 재시도 토큰 (0.2 = 성공 5번에 재시도 1번)
+
+    int budgetCapacity() default 10; // 재시도 토큰의 처음 잔액이자 최대 잔액
+
+    Class<? extends Throwable>[] retryOn() default Exception.class; // 재시도할 예외 타입
+
+    Class<? extends Throwable>[] noRetryOn() default {}; // 재시도하지 않을 예외 타입
+
+    enum Jitter {
+        NONE,         // 계산된 대기 시간 그대로
+        FULL,         // 0 ~ 계산된 대기 시간 사이의 임의 값
+        DECORRELATED  // delay ~ 직전 대기 시간 * 3 사이의 임의 값 (상한은 maxDelay)
+    }
 }
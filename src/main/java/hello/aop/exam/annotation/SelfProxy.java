@@ -0,0 +1,20 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 빈 자기 자신의 최종 프록시를 받을 필드(또는 파라미터 하나짜리 메서드)
+ * SelfProxyBeanPostProcessor 가 프록시가 만들어진 직후에 한 번만 넣어준다.
+ *  - 자기 자신을 주입받는 것이 아니라서 순환 참조(spring.main.allow-circular-references)가 필요 없다. (CallServiceV1 과 비교)
+ *  - 호출할 때마다 컨테이너를 조회하지 않는다. (CallServiceV2 의 ObjectProvider.getObject() 와 비교)
+ *  - 생성자에는 쓸 수 없다. 생성자가 실행될 때는 아직 프록시가 없다.
+ *  - 순환 참조 때문에 다른 빈이 먼저 가져간 빈이어도 실제 객체가 아니라 그때 미리 만든 프록시가 들어간다.
+ *  - 부모의 @SelfProxy 메서드를 재정의해도 한 번만 호출한다.
+ */
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SelfProxy {
+}
@@ -0,0 +1,15 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 트레이스/로그에 값을 남기면 안 되는 파라미터 (비밀번호, 토큰 등)
+ * ArgsRenderer 가 값 대신 "****" 로 남긴다.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Sensitive {
+}
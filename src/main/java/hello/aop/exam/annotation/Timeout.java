@@ -0,0 +1,18 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 타임아웃 AOP
+ * 호출이 value(ms) 안에 끝나지 않으면 CallTimeoutException 으로 실패시킨다.
+ *  - 동기 메서드: 마감 시간에 호출 스레드를 인터럽트한다.
+ *  - CompletionStage 를 반환하는 메서드: 돌려준 future 를 예외로 완료한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timeout {
+    long value(); // 마감 시간(ms)
+}
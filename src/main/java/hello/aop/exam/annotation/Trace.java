@@ -12,4 +12,11 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD) // 메서드에 걸게끔
 @Retention(RetentionPolicy.RUNTIME) // 런타임까지 살아있게끔
 public @interface Trace {
+
+    // 이 메서드가 트레이스의 최상위 호출일 때 초당 이 정도 트레이스만 남기도록 샘플링한다. 안쪽 호출은 바깥 결정을 따른다.
+    // (호출이 이보다 드문 메서드는 전부 남는다, 0 이하면 샘플링 안 함)
+    double samplesPerSecond() default 100;
+
+    // 이 시간(ms) 이상 걸린 호출은 샘플링과 상관없이 항상 남긴다.
+    long slowThreshold() default 100;
 }
@@ -0,0 +1,66 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.support.AdaptiveLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.Order;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 적응형 동시성 제한 애스펙트
+ * 이름이 *Repository 인 빈(BeanTest 의 bean(*Repository) 와 같은 모양)마다 AdaptiveLimiter 를 하나씩 둔다.
+ * 고정된 벌크헤드 크기는 부하가 바뀌면 틀리게 되므로, 응답 시간을 보고 허용 동시 호출 수를 계속 조정한다.
+ * 리미터는 시그니처의 선언 타입이 아니라 실제 대상 클래스로 나눈다. 공통 부모 클래스나 Object 에 선언된 메서드도 빈마다 따로 센다.
+ * 반환값이 CompletionStage 이면 future 가 끝날 때 자리를 돌려주고 응답 시간을 잰다. (비동기 작업도 끝날 때까지 자리를 차지한다)
+ *
+ * @Order(5): 벌크헤드(4)보다 안쪽, 저장소 호출에 가장 가깝게 실행된다.
+ */
+@Slf4j
+@Aspect
+@Order(5)
+public class AdaptiveLimitAspect {
+
+    private final Map<Class<?>, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Around("bean(*Repository)")
+    public Object doLimit(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> type = AopUtils.getTargetClass(joinPoint.getTarget());
+        AdaptiveLimiter limiter = limiters.get(type);
+        if (limiter == null) {
+            limiter = limiters.computeIfAbsent(type, key -> new AdaptiveLimiter(key.getSimpleName(), 20, 1, 200));
+        }
+
+        long start = limiter.acquire(); // 한도를 넘으면 여기서 바로 LimitExceededException
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            limiter.release(start, false);
+            throw e;
+        }
+
+        if (result instanceof CompletionStage) {
+            AdaptiveLimiter asyncLimiter = limiter;
+            // 호출한 쪽에는 원래 future 를 그대로 돌려준다. (취소도 원래 future 에 그대로 전달되고, 취소되면 실패로 끝나 자리가 돌아온다)
+            ((CompletionStage<?>) result).whenComplete((value, ex) -> asyncLimiter.release(start, ex == null));
+            return result;
+        }
+        limiter.release(start, true);
+        return result;
+    }
+
+    public AdaptiveLimiter limiter(Class<?> repositoryType) {
+        return limiters.get(repositoryType);
+    }
+
+    public Collection<AdaptiveLimiter> limiters() {
+        return limiters.values();
+    }
+}
@@ -0,0 +1,67 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.Bulkhead;
+import hello.aop.exam.support.BulkheadPool;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 벌크헤드 애스펙트
+ * @Bulkhead 의 name 이 같으면 같은 BulkheadPool 을 쓰고, 비어 있으면 메서드마다 따로 만든다.
+ * 거절 수와 대기 시간은 pools() 로 꺼낸 BulkheadPool 에서 확인할 수 있다.
+ *
+ * @Order(4): 재시도/헤지 안쪽이라 재시도나 헤지 요청 하나하나가 자리를 차지한다.
+ */
+@Slf4j
+@Aspect
+@Order(4)
+public class BulkheadAspect {
+
+    private final Map<String, BulkheadPool> pools = new ConcurrentHashMap<>();
+    private final Map<Method, BulkheadPool> methodPools = new ConcurrentHashMap<>();
+
+    @Around("@annotation(bulkhead)")
+    public Object doBulkhead(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+        BulkheadPool pool = methodPools.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                method -> poolFor(method, bulkhead));
+
+        return pool.execute(() -> proceed(joinPoint));
+    }
+
+    public BulkheadPool pool(String name) {
+        return pools.get(name);
+    }
+
+    public Collection<BulkheadPool> pools() {
+        return pools.values();
+    }
+
+    private BulkheadPool poolFor(Method method, Bulkhead bulkhead) {
+        String name = bulkhead.name().isEmpty()
+                ? method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                : bulkhead.name();
+        return pools.computeIfAbsent(name, key -> {
+            log.info("[bulkhead] create pool={} mode={} maxConcurrent={}", key, bulkhead.mode(), bulkhead.maxConcurrent());
+            return BulkheadPool.from(key, bulkhead);
+        });
+    }
+
+    private static Object proceed(ProceedingJoinPoint joinPoint) throws Exception {
+        try {
+            return joinPoint.proceed();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.CircuitBreaker;
+import hello.aop.exam.support.CircuitBreakerStateMachine;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 서킷 브레이커 애스펙트
+ * 메서드마다 CircuitBreakerStateMachine 을 하나씩 두고, 호출 전에 허용 여부를 묻고 호출 결과를 알려준다.
+ * 반환 타입이 CompletionStage 이면 future 가 끝났을 때 결과를 기록한다.
+ *
+ * @Order(2): RetryAspect(@Order(1)) 보다 안쪽에서 실행된다. 그래서 재시도 한 번 한 번이 브레이커 윈도우에 기록된다.
+ */
+@Slf4j
+@Aspect
+@Order(2)
+public class CircuitBreakerAspect {
+
+    private final Map<Method, CircuitBreakerStateMachine> breakers = new ConcurrentHashMap<>();
+
+    @Around("@annotation(circuitBreaker)")
+    public Object doCircuitBreak(ProceedingJoinPoint joinPoint, CircuitBreaker circuitBreaker) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        CircuitBreakerStateMachine breaker = breakers.computeIfAbsent(signature.getMethod(),
+                method -> CircuitBreakerStateMachine.from(signature.toShortString(), circuitBreaker));
+
+        int permit = breaker.acquirePermission(); // OPEN 이면 여기서 바로 예외
+
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            breaker.onFailure(permit);
+            log.info("[circuit] {} failure state={}", signature, breaker.state());
+            throw e;
+        }
+
+        if (result instanceof CompletionStage) {
+            return ((CompletionStage<?>) result).whenComplete((value, ex) -> {
+                if (ex == null) {
+                    breaker.onSuccess(permit);
+                } else {
+                    breaker.onFailure(permit);
+                }
+            });
+        }
+        breaker.onSuccess(permit);
+        return result;
+    }
+
+    public CircuitBreakerStateMachine breaker(Method method) {
+        return breakers.get(method);
+    }
+}
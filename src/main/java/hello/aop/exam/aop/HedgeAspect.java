@@ -0,0 +1,189 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.Hedge;
+import hello.aop.exam.support.HedgePolicy;
+import hello.aop.exam.trace.TraceExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 헤지 애스펙트
+ *  1. 첫 시도를 헤지 전용 풀에서 실행하고, 호출 스레드는 HedgePolicy 가 정한 시간만큼만 기다린다.
+ *  2. 그 안에 끝나지 않았고 헤지 예산이 남아 있으면 같은 호출을 한 번 더 보낸다.
+ *  3. 먼저 성공한 결과를 돌려주고 나머지는 cancel(true) 로 인터럽트해서 취소한다. (둘 다 실패하면 마지막 예외)
+ *     취소한 시도도 취소할 때까지 걸린 시간을 지연 표본으로 남긴다. (실제 지연의 하한)
+ *     느린 시도만 빠지면 분포가 빠른 쪽으로 치우쳐서 헤지 기준이 점점 낮아지기 때문이다.
+ * 지연 기준이 아직 없거나(표본 부족) 풀이 가득 차면 헤지 없이 호출 스레드에서 그대로 실행한다.
+ *
+ * 시도가 다른 스레드에서 실행되므로 스레드 로컬(트랜잭션 등)에 기대는 메서드에는 쓰면 안 된다.
+ * (트레이스 컨텍스트는 TraceExecutors 로 감싼 풀이 넘겨준다)
+ * @Order(3): 재시도(1), 서킷 브레이커(2) 안쪽이라 헤지된 호출 하나가 재시도 한 번으로 취급된다.
+ */
+@Slf4j
+@Aspect
+@Order(3)
+public class HedgeAspect {
+
+    private static final AtomicInteger THREAD_SEQ = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = TraceExecutors.wrap(new ThreadPoolExecutor(0, 64, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), r -> {
+        Thread thread = new Thread(r, "hedge-" + THREAD_SEQ.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }));
+
+    private final Map<Method, HedgePolicy> policies = new ConcurrentHashMap<>();
+
+    @Around("@annotation(hedge)")
+    public Object doHedge(ProceedingJoinPoint joinPoint, Hedge hedge) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        HedgePolicy policy = policies.computeIfAbsent(signature.getMethod(), method -> HedgePolicy.from(hedge));
+        policy.onCall();
+
+        long hedgeDelay = policy.hedgeDelayNanos();
+        if (hedgeDelay < 0) {
+            return proceedAndRecord(joinPoint, policy);
+        }
+
+        ExecutorCompletionService<Object> attempts = new ExecutorCompletionService<>(EXECUTOR);
+        Attempt primaryAttempt = new Attempt(joinPoint, policy);
+        Future<Object> primary;
+        try {
+            primary = attempts.submit(primaryAttempt);
+        } catch (RejectedExecutionException e) {
+            return proceedAndRecord(joinPoint, policy);
+        }
+
+        Attempt secondaryAttempt = null;
+        Future<Object> secondary = null;
+        try {
+            Future<Object> done = attempts.poll(hedgeDelay, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                secondaryAttempt = new Attempt(joinPoint, policy);
+                secondary = submitHedge(attempts, secondaryAttempt, policy);
+                if (secondary != null) {
+                    log.info("[hedge] {} hedged after {}us", signature, hedgeDelay / 1000);
+                }
+                done = attempts.take();
+            }
+
+            int remaining = secondary == null ? 0 : 1;
+            while (true) {
+                try {
+                    Object result = done.get();
+                    if (done == secondary) {
+                        policy.recordHedgeWin();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    if (remaining-- == 0) {
+                        throw e.getCause();
+                    }
+                    done = attempts.take();
+                }
+            }
+        } finally {
+            primaryAttempt.cancel(primary);
+            if (secondary != null) {
+                secondaryAttempt.cancel(secondary);
+            }
+        }
+    }
+
+    public HedgePolicy policy(Method method) {
+        return policies.get(method);
+    }
+
+    private Future<Object> submitHedge(ExecutorCompletionService<Object> attempts, Callable<Object> attempt, HedgePolicy policy) {
+        if (!policy.tryAcquireHedge()) {
+            return null;
+        }
+        try {
+            return attempts.submit(attempt);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    private static Object proceedAndRecord(ProceedingJoinPoint joinPoint, HedgePolicy policy) throws Exception {
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            policy.recordLatency(System.nanoTime() - start);
+            return result;
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 풀에서 실행하는 시도 하나. 지연 표본은 시도마다 한 번만 남긴다.
+     *  - 끝까지 성공하면 실제 걸린 시간
+     *  - 끝나기 전에 취소되면 취소한 시점까지 걸린 시간 (실제 지연은 이보다 길다)
+     * 취소된 뒤 인터럽트를 무시하고 늦게 끝나도 이미 남긴 표본이 있으면 다시 남기지 않는다.
+     */
+    private static final class Attempt implements Callable<Object> {
+
+        private final ProceedingJoinPoint joinPoint;
+        private final HedgePolicy policy;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private volatile long start; // 0 이면 아직 시작 전
+
+        Attempt(ProceedingJoinPoint joinPoint, HedgePolicy policy) {
+            this.joinPoint = joinPoint;
+            this.policy = policy;
+        }
+
+        @Override
+        public Object call() throws Exception {
+            long start = System.nanoTime();
+            this.start = start;
+            try {
+                Object result = joinPoint.proceed();
+                record(System.nanoTime() - start);
+                return result;
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void cancel(Future<Object> future) {
+            if (future.cancel(true)) {
+                long start = this.start;
+                if (start != 0) {
+                    record(System.nanoTime() - start); // 시작도 못 한 채 취소된 시도는 남기지 않는다
+                }
+            }
+        }
+
+        private void record(long nanos) {
+            if (recorded.compareAndSet(false, true)) {
+                policy.recordLatency(nanos);
+            }
+        }
+    }
+}
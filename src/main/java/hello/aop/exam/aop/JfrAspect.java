@@ -0,0 +1,52 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.trace.AdvisedMethodEvent;
+import hello.aop.exam.trace.SignatureRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+
+/**
+ * JFR 이벤트 애스펙트
+ * @Trace, @Retry 가 붙은 메서드와 Pointcuts.orderAndService() 실행마다 AdvisedMethodEvent 를 남긴다.
+ *  - JFR 에서 이벤트가 꺼져 있으면 isEnabled() 확인 후 바로 실행만 한다. (이벤트 객체는 JIT 가 없애 준다)
+ *  - 켜져 있으면 begin -> 실행 -> end 후 shouldCommit() (JFR threshold 를 넘긴 것만) 일 때 시그니처, 결과, 재시도 회차를 채워 commit 한다.
+ *  - 시그니처 문자열은 SignatureRegistry 에 등록된 이름을 그대로 쓴다. (호출마다 만들지 않는다)
+ *
+ * @Order(7): 재시도/헤지 등 모든 복원력 애스펙트 안쪽에서 실행되어, 재시도 한 번이 이벤트 하나가 된다.
+ * 켜는 방법: trace.jfr.enabled=true (TraceJfrConfig) 또는 @Import(JfrAspect.class)
+ */
+@Aspect
+@Order(7)
+public class JfrAspect {
+
+    @Around("@annotation(hello.aop.exam.annotation.Trace) || @annotation(hello.aop.exam.annotation.Retry)"
+            + " || hello.aop.order.aop.Pointcuts.orderAndService()")
+    public Object doRecord(ProceedingJoinPoint joinPoint) throws Throwable {
+        AdvisedMethodEvent event = new AdvisedMethodEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        event.begin();
+        Throwable failure = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                SignatureRegistry registry = SignatureRegistry.getInstance();
+                event.signature = registry.name(registry.id(((MethodSignature) joinPoint.getSignature()).getMethod()));
+                event.outcome = failure == null ? "SUCCESS" : "FAILURE";
+                event.exception = failure == null ? null : failure.getClass().getName();
+                event.attempt = RetryAspect.currentAttempt();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.RateLimit;
+import hello.aop.exam.exception.RateLimitExceededException;
+import hello.aop.exam.support.KeyedTokenBuckets;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 처리율 제한 애스펙트
+ * 메서드마다 KeyedTokenBuckets 를 하나 두고, @RateLimit 의 key 로 만든 키의 버킷에서 토큰을 꺼낸다.
+ * key 가 "#itemId" 처럼 파라미터 하나를 그대로 가리키면 SpEL 을 거치지 않고 인수 배열에서 바로 꺼낸다.
+ *
+ * 잘못된 @RateLimit(0 이하의 permitsPerSecond, 파라미터를 못 찾는 key, 파싱할 수 없는 식)은 첫 호출이 아니라 빈이 프록시될 때 잡는다.
+ * 후처리기(BeanPostProcessor)로서 프록시가 된 빈의 @RateLimit 메서드마다 Limiter 를 미리 만들어 보고, 실패하면 빈 생성을 실패시킨다.
+ * (Ordered 를 구현하지 않으므로 Ordered 인 자동 프록시 생성기보다 뒤에 실행되어, 여기서 받는 빈은 이미 프록시다)
+ *
+ * @Order(6): 가장 안쪽에서 실행되어 재시도나 헤지 요청도 한도에 포함된다. (하위 저장소 보호가 목적)
+ */
+@Slf4j
+@Aspect
+@Order(6)
+public class RateLimitAspect implements BeanPostProcessor {
+
+    private static final int MAX_KEYS = 10_000;
+    private static final Object NULL_KEY = new Object();
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final Map<Method, Limiter> limiters = new ConcurrentHashMap<>();
+
+    @Around("@annotation(rateLimit)")
+    public Object doRateLimit(ProceedingJoinPoint joinPoint, RateLimit rateLimit) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Limiter limiter = limiters.get(method);
+        if (limiter == null) {
+            limiter = limiters.computeIfAbsent(method, m -> new Limiter(m, rateLimit));
+        }
+
+        if (!limiter.buckets.tryAcquire(limiter.key(joinPoint))) {
+            throw limiter.rejection;
+        }
+        return joinPoint.proceed();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!AopUtils.isAopProxy(bean)) {
+            return bean;
+        }
+        ReflectionUtils.doWithMethods(AopUtils.getTargetClass(bean), method -> {
+            RateLimit rateLimit = method.getAnnotation(RateLimit.class);
+            try {
+                limiters.computeIfAbsent(method, m -> new Limiter(m, rateLimit));
+            } catch (RuntimeException e) {
+                throw new BeanCreationException(beanName, "Invalid @RateLimit on " + method, e);
+            }
+        }, method -> method.isAnnotationPresent(RateLimit.class) && !method.isBridge());
+        return bean;
+    }
+
+    public KeyedTokenBuckets buckets(Method method) {
+        Limiter limiter = limiters.get(method);
+        return limiter == null ? null : limiter.buckets;
+    }
+
+    private static final class Limiter {
+
+        private static final int METHOD_KEY = -1;
+        private static final int EXPRESSION_KEY = -2;
+
+        final Method method;
+        final KeyedTokenBuckets buckets;
+        final RateLimitExceededException rejection;
+        final int argIndex;
+        final Expression expression;
+
+        Limiter(Method method, RateLimit rateLimit) {
+            if (!(rateLimit.permitsPerSecond() > 0)) {
+                throw new IllegalStateException("@RateLimit permitsPerSecond must be positive: " + method);
+            }
+            int burst = rateLimit.burst() > 0 ? rateLimit.burst() : (int) Math.max(1, Math.ceil(rateLimit.permitsPerSecond()));
+            this.method = method;
+            this.buckets = new KeyedTokenBuckets(rateLimit.permitsPerSecond(), burst, MAX_KEYS);
+            this.rejection = new RateLimitExceededException("Rate limit exceeded: " + method.getName());
+
+            String key = rateLimit.key().trim();
+            int index = key.isEmpty() ? METHOD_KEY : parameterIndex(method, key);
+            this.argIndex = index;
+            this.expression = index == EXPRESSION_KEY ? PARSER.parseExpression(key) : null;
+        }
+
+        Object key(ProceedingJoinPoint joinPoint) {
+            if (argIndex == METHOD_KEY) {
+                return NULL_KEY;
+            }
+            Object key;
+            if (argIndex >= 0) {
+                key = joinPoint.getArgs()[argIndex];
+            } else {
+                key = expression.getValue(new MethodBasedEvaluationContext(null, method, joinPoint.getArgs(), PARAMETER_NAMES));
+            }
+            return key == null ? NULL_KEY : key;
+        }
+
+        // "#name", "#p0", "#a0" 처럼 파라미터 하나만 가리키는 식이면 그 위치를, 아니면 EXPRESSION_KEY
+        // 가리키는 파라미터가 없으면 SpEL 이 null 을 돌려주어 모든 호출이 한 버킷을 나눠 쓰게 되므로 바로 실패시킨다.
+        private static int parameterIndex(Method method, String key) {
+            if (!key.startsWith("#")) {
+                return EXPRESSION_KEY;
+            }
+            String name = key.substring(1);
+            if (name.matches("[pa]\\d+")) {
+                int index = Integer.parseInt(name.substring(1));
+                if (index >= method.getParameterCount()) {
+                    throw new IllegalStateException("@RateLimit key " + key + " is out of range: " + method);
+                }
+                return index;
+            }
+            if (!name.matches("[A-Za-z_$][\\w$]*")) {
+                return EXPRESSION_KEY;
+            }
+            String[] names = PARAMETER_NAMES.getParameterNames(method);
+            if (names != null) {
+                for (int i = 0; i < names.length; i++) {
+                    if (names[i].equals(name)) {
+                        return i;
+                    }
+                }
+            }
+            throw new IllegalStateException("@RateLimit key " + key + " matches no parameter: " + method);
+        }
+    }
+}
@@ -1,39 +1,172 @@
 package hello.aop.exam.aop;
 
 import hello.aop.exam.annotation.Retry;
+import hello.aop.exam.support.RetryPolicy;
+import hello.aop.exam.support.RetryScheduler;
+import hello.aop.exam.trace.TraceExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 재시도 하는 애스펙트이다.
  * @annotation(retry) , Retry retry 를 사용해서 어드바이스에 애노테이션을 파라미터로 전달한다.
  * retry.value() 를 통해서 애노테이션에 지정한 값을 가져올 수 있다.
  * 예외가 발생해서 결과가 정상 반환되지 않으면 retry.value() 만큼 재시도한다.
+ * 재시도 사이의 대기 시간은 Backoff 가 계산한다.
+ * 동기 메서드는 호출 스레드가 백오프 동안 Thread.sleep 으로 잔다. (결과를 돌려줘야 하므로 스레드를 붙잡는 것은 피할 수 없다)
+ *
+ * 반환 타입이 CompletionStage(CompletableFuture) 이면 비동기 재시도를 한다.
+ *  - 동기 예외만 잡으면 future 안에서 난 실패는 재시도되지 않는다.
+ *  - 그래서 future 가 실패로 끝나면 백오프 후 다음 시도를 이어 붙이고, 호출 스레드는 기다리지 않고 바로 future 를 돌려받는다.
+ *  - 백오프는 공유 RetryScheduler 가 깨워 주므로 대기하는 동안 붙잡히는 스레드가 없다. (스레드를 붙잡지 않는 것은 이 경우뿐이다)
+ *
+ * 재시도 예산(RetryBudget)이 바닥나면 남은 재시도를 하지 않고 마지막 예외로 바로 실패한다.
+ * 재시도해도 소용없는 예외(@Retry 의 noRetryOn, 서킷 브레이커, 벌크헤드, 속도 제한 같은 보호 장치의 거절)는 RetryClassifier 로 걸러서 바로 던진다.
+ *
+ * @Order(1): 가장 바깥에서 실행되어 재시도마다 안쪽 애스펙트(CircuitBreakerAspect 등)를 다시 거친다.
  */
 @Slf4j
 @Aspect
+@Order(1)
 public class RetryAspect {
 
+    // 지금 스레드에서 실행 중인 시도 회차 (1부터, 재시도 밖이면 0). 안쪽 애스펙트(JfrAspect 등)가 currentAttempt() 로 읽는다.
+    private static final ThreadLocal<int[]> ATTEMPT = ThreadLocal.withInitial(() -> new int[1]);
+
+    // 메서드별 재시도 정책 (애노테이션 해석과 예산은 메서드마다 한 번만 만든다)
+    private final Map<Method, RetryPolicy> policies = new ConcurrentHashMap<>();
+
+    public static int currentAttempt() {
+        return ATTEMPT.get()[0];
+    }
 
     // AOP자체를 파라미터로 넘겨주게 되면, 굳이 @annotation()안에 패키지 경로부터 끝까지 쓰지 않고 해당 AOP와 파라미터의 이름만 잘 맞춰도 인식이 됨!
-    @Around("@annotation(retry)")
+    // execution(* *(..)): 로드 타임 위빙에서 호출 지점(call)까지 두 번 재시도하지 않도록 메서드 실행에만 건다.
+    @Around("execution(* *(..)) && @annotation(retry)")
     public Object doRetry(ProceedingJoinPoint joinPoint, Retry retry) throws Throwable {
         log.info("[retry] {} args={}", joinPoint.getSignature(), retry);
 
-        int maxRetry = retry.value();
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        RetryPolicy policy = policies.computeIfAbsent(signature.getMethod(), method -> RetryPolicy.from(retry));
+
+        if (CompletionStage.class.isAssignableFrom(signature.getReturnType())) {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            // 재시도는 다른 스레드에서 이어지므로 지금 스레드의 트레이스 컨텍스트를 묶어 둔 실행기로 넘긴다.
+            retryAsync(joinPoint, policy, 1, 0, result, TraceExecutors.bind(ForkJoinPool.commonPool()));
+            return result;
+        }
+
+        int maxRetry = policy.maxAttempts();
         Exception exceptionHolder = null;
+        long delay = 0;
 
         for (int retryCount = 1; retryCount <= maxRetry; ++retryCount) {
+            if (exceptionHolder != null) {
+                if (!policy.tryAcquireRetry()) {
+                    log.info("[retry] budget exhausted {}", joinPoint.getSignature());
+                    break;
+                }
+                delay = policy.backoff().nextDelay(retryCount - 1, delay);
+                if (!awaitBackoff(delay, exceptionHolder)) {
+                    break;
+                }
+            }
             try {
                 log.info("[retry] try count={}/{}", retryCount, maxRetry);
-                return joinPoint.proceed();
+                Object result = proceedAttempt(joinPoint, retryCount);
+                policy.onSuccess();
+                return result;
             } catch (Exception e) {
+                if (!policy.isRetryable(e, retryCount)) {
+                    log.info("[retry] not retryable {} avoided={}", e.getClass().getSimpleName(),
+                            policy.classifier().avoidedRetries());
+                    throw e;
+                }
                 exceptionHolder = e;
             }
         }
 
         throw exceptionHolder;
     }
+
+    private static Object proceedAttempt(ProceedingJoinPoint joinPoint, int attempt) throws Throwable {
+        int[] current = ATTEMPT.get();
+        int outer = current[0];
+        current[0] = attempt;
+        try {
+            return joinPoint.proceed();
+        } finally {
+            current[0] = outer;
+        }
+    }
+
+    public RetryPolicy policy(Method method) {
+        return policies.get(method);
+    }
+
+    // 대기 중 인터럽트되면 더 재시도하지 않고 마지막 예외를 던진다.
+    private boolean awaitBackoff(long delay, Exception exceptionHolder) {
+        if (delay <= 0) {
+            return true;
+        }
+        log.info("[retry] backoff {}ms", delay);
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exceptionHolder.addSuppressed(e);
+            return false;
+        }
+    }
+
+    private void retryAsync(ProceedingJoinPoint joinPoint, RetryPolicy policy,
+                            int retryCount, long delay, CompletableFuture<Object> result, Executor executor) {
+        log.info("[retry] async try count={}/{}", retryCount, policy.maxAttempts());
+
+        CompletionStage<?> stage;
+        try {
+            stage = (CompletionStage<?>) proceedAttempt(joinPoint, retryCount);
+            if (stage == null) {
+                stage = CompletableFuture.failedFuture(new IllegalStateException("null CompletionStage: " + joinPoint.getSignature()));
+            }
+        } catch (Throwable e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+
+        stage.whenComplete((value, ex) -> {
+            if (ex == null) {
+                policy.onSuccess();
+                result.complete(value);
+                return;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (retryCount >= policy.maxAttempts() || !policy.isRetryable(cause, retryCount)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (!policy.tryAcquireRetry()) {
+                log.info("[retry] budget exhausted {}", joinPoint.getSignature());
+                result.completeExceptionally(cause);
+                return;
+            }
+            long nextDelay = policy.backoff().nextDelay(retryCount, delay);
+            // 스케줄러 스레드는 깨우기만 하고, 다음 시도는 공용 풀에서 실행한다.
+            RetryScheduler.delay(nextDelay)
+                    .thenRunAsync(() -> retryAsync(joinPoint, policy, retryCount + 1, nextDelay, result, executor), executor);
+        });
+    }
 }
@@ -0,0 +1,124 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.Timeout;
+import hello.aop.exam.exception.CallTimeoutException;
+import hello.aop.exam.support.HashedWheelTimer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 타임아웃 애스펙트
+ * 모든 마감 시간을 HashedWheelTimer 하나에 건다. 호출마다 스레드나 ScheduledFuture 를 만들지 않는다.
+ * 휠 점유(pendingCount)와 만료 수(expiredCount)는 timer() 로 확인할 수 있다.
+ *
+ * @Order(0): 가장 바깥에서 실행된다. 마감 시간은 재시도와 백오프까지 포함한 호출 전체에 걸린다.
+ */
+@Slf4j
+@Aspect
+@Order(0)
+public class TimeoutAspect {
+
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer("timeout-wheel", 1, TimeUnit.MILLISECONDS, 1024);
+
+    @Around("@annotation(timeout)")
+    public Object doTimeout(ProceedingJoinPoint joinPoint, Timeout timeout) throws Throwable {
+        if (CompletionStage.class.isAssignableFrom(((MethodSignature) joinPoint.getSignature()).getReturnType())) {
+            CompletionStage<?> stage = (CompletionStage<?>) joinPoint.proceed();
+            return stage == null ? null : withDeadline(joinPoint, timeout, stage);
+        }
+
+        Object result;
+        Deadline deadline = new Deadline(Thread.currentThread());
+        HashedWheelTimer.Timeout registration = TIMER.newTimeout(deadline, timeout.value(), TimeUnit.MILLISECONDS);
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            registration.cancel();
+            if (deadline.finish()) {
+                throw e;
+            }
+            throw timeoutException(joinPoint, timeout, e);
+        }
+        registration.cancel();
+        if (!deadline.finish()) {
+            throw timeoutException(joinPoint, timeout, null);
+        }
+        return result;
+    }
+
+    public HashedWheelTimer timer() {
+        return TIMER;
+    }
+
+    private CompletableFuture<Object> withDeadline(ProceedingJoinPoint joinPoint, Timeout timeout, CompletionStage<?> stage) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        HashedWheelTimer.Timeout registration = TIMER.newTimeout(
+                () -> result.completeExceptionally(timeoutException(joinPoint, timeout, null)),
+                timeout.value(), TimeUnit.MILLISECONDS);
+        stage.whenComplete((value, ex) -> {
+            registration.cancel();
+            if (ex == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    private CallTimeoutException timeoutException(ProceedingJoinPoint joinPoint, Timeout timeout, Throwable cause) {
+        log.info("[timeout] {} exceeded {}ms", joinPoint.getSignature(), timeout.value());
+        return new CallTimeoutException(joinPoint.getSignature().toShortString() + " exceeded " + timeout.value() + "ms", cause);
+    }
+
+    /**
+     * 동기 호출의 마감 처리
+     * 타이머 스레드와 호출 스레드 중 먼저 상태를 바꾼 쪽이 이긴다.
+     * 타이머가 이기면 인터럽트를 보내고, 호출 스레드는 그 인터럽트가 도착할 때까지 기다렸다가 지운다. (다음 작업에 인터럽트가 새지 않게)
+     */
+    private static final class Deadline implements Runnable {
+
+        private static final int RUNNING = 0;
+        private static final int INTERRUPTING = 1;
+        private static final int INTERRUPTED = 2;
+        private static final int DONE = 3;
+
+        private final Thread caller;
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+        Deadline(Thread caller) {
+            this.caller = caller;
+        }
+
+        @Override
+        public void run() {
+            if (state.compareAndSet(RUNNING, INTERRUPTING)) {
+                caller.interrupt();
+                state.set(INTERRUPTED);
+            }
+        }
+
+        /**
+         * @return 마감 전에 끝났으면 true
+         */
+        boolean finish() {
+            if (state.compareAndSet(RUNNING, DONE)) {
+                return true;
+            }
+            while (state.get() != INTERRUPTED) {
+                Thread.onSpinWait();
+            }
+            Thread.interrupted();
+            return false;
+        }
+    }
+}
@@ -1,18 +1,177 @@
 package hello.aop.exam.aop;
 
+import hello.aop.exam.annotation.Trace;
+import hello.aop.exam.trace.SignatureRegistry;
+import hello.aop.exam.trace.Span;
+import hello.aop.exam.trace.TraceContext;
+import hello.aop.exam.trace.TraceSampler;
+import hello.aop.exam.trace.TraceSink;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로그 출력 애스펙트
+ *  - TraceSink 빈이 있으면 로그 대신 sink 에 넘긴다. (AsyncTraceSink 는 링 버퍼에 복사만 하고 바로 돌아온다)
+ *  - 로그 레벨이 꺼져 있고 sink 도 없으면 joinPoint.getArgs()(인수 배열 복사)도 하지 않고 바로 실행만 한다.
+ *  - 호출마다 스팬을 만들어 TraceContext(스레드별 스택)에 올린다. 중첩된 @Trace 호출은 부모/자식으로 이어지고,
+ *    끝날 때 시작/끝 시각, 예외 여부, 자식을 뺀 자기 시간(self)이 함께 남는다.
+ *    샘플링에서 빠진 스팬은 스레드별 풀에 돌려주므로, 남기지 않는 호출은 (켜져 있어도) 할당이 없다.
+ *  - 정책은 @annotation(trace) 로 받은 애노테이션 객체로 찾는다. 리플렉션은 애노테이션을 Method 마다 한 번 만들어 캐시하므로
+ *    같은 메서드면 같은 객체가 온다. 호출마다 새 객체를 만드는 스프링 AOP 의 joinPoint.getSignature() 를 부르지 않아도 된다.
+ *    (처음 보는 애노테이션 객체일 때만 시그니처에서 Method 를 꺼내 찾는다)
+ *  - 트레이스의 최상위 @Trace 호출이 자기 TraceSampler 로 초당 @Trace.samplesPerSecond 정도만 남기기로 정하고,
+ *    안쪽 @Trace 호출은 그 결정을 물려받는다. 그래서 트레이스는 통째로 남거나 빠지고, 남긴 스팬의 부모는 항상 함께 남는다.
+ *    단, 예외가 났거나 @Trace.slowThreshold 이상 걸린 호출은 샘플링과 상관없이 자기와 실행 중인 조상을 모두 남긴다.
+ *  - 인수는 LazyArgs 로 감싸서 넘긴다. 실제로 로그 문자열을 만들 때(toString)만 인수를 꺼내서 그린다.
+ *    그릴 때는 메서드별로 미리 만든 ArgsRenderer 를 쓴다. (길이 제한, @Sensitive 파라미터 가림)
+ *  - 메서드별 정책(시그니처 id, ArgsRenderer, 샘플러)은 빈이 프록시될 때 만든다. (BeanPostProcessor)
+ *    Ordered 를 구현하지 않으므로 Ordered 인 자동 프록시 생성기보다 뒤에 실행되어, 여기서 받는 빈은 이미 프록시다.
+ *    그래서 호출 경로는 이미 만들어 둔 정책을 읽기만 한다.
+ *    컨테이너 밖에서 만든 프록시(AspectJProxyFactory)나 로드 타임 위빙처럼 후처리기를 거치지 않은 경우에만 첫 호출에서 만든다.
+ */
 @Slf4j
 @Aspect
-public class TraceAspect {
+public class TraceAspect implements BeanPostProcessor {
+
+    private final Map<Method, Policy> policies = new ConcurrentHashMap<>();
+    // 애노테이션 객체 -> 정책 (읽기는 락 없이, 정책을 만들 때만 복사해서 바꾼다)
+    private volatile Map<Trace, Policy> byAnnotation = new IdentityHashMap<>();
+    private TraceSink sink;
+
+    @Autowired(required = false)
+    public void setTraceSink(TraceSink sink) {
+        this.sink = sink;
+    }
+
+    // @annotation(trace) 포인트컷을 사용해서 @Trace 가 붙은 메서드에 어드바이스를 적용한다. (샘플링 설정을 읽으려고 애노테이션을 받는다)
+    // execution(* *(..)) 로 메서드 실행에만 건다. 프록시에서는 같은 뜻이고, 로드 타임 위빙(META-INF/aop.xml)에서는 호출하는 쪽(call)에 한 번 더 걸리지 않게 한다.
+    @Around("execution(* *(..)) && @annotation(trace)")
+    public Object doTrace(ProceedingJoinPoint joinPoint, Trace trace) throws Throwable {
+        if (sink == null && !log.isInfoEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        long start = System.nanoTime();
+        Policy policy = byAnnotation.get(trace);
+        if (policy == null) {
+            // 헤지/벌크헤드 풀 스레드에서 실행될 수도 있으므로 호출 스레드에만 있는 ExposeInvocationInterceptor 에 기대지 않는다.
+            policy = policy(((MethodSignature) joinPoint.getSignature()).getMethod(), trace, start);
+        }
+        Span span = TraceContext.start(policy.signatureId, start, policy.sampler);
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long end = System.nanoTime();
+            TraceContext.end(span, end, failed, failed || end - start >= policy.slowNanos);
+            if (span.sampled()) {
+                emit(joinPoint, span);
+            } else {
+                TraceContext.release(span); // 남기지 않는 스팬은 다음 호출에서 다시 쓴다.
+            }
+        }
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!AopUtils.isAopProxy(bean)) {
+            return bean;
+        }
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        // JDK 동적 프록시에서는 joinPoint 의 메서드가 인터페이스 메서드이므로 인터페이스 쪽에도 같은 정책을 걸어 둔다.
+        Class<?>[] interfaces = AopUtils.isJdkDynamicProxy(bean) ? ClassUtils.getAllInterfacesForClass(targetClass) : new Class<?>[0];
+        long now = System.nanoTime();
+        ReflectionUtils.doWithMethods(targetClass, method -> {
+            Policy policy = policies.computeIfAbsent(method, m -> newPolicy(m, m.getAnnotation(Trace.class), now));
+            for (Class<?> type : interfaces) {
+                Method declared = ReflectionUtils.findMethod(type, method.getName(), method.getParameterTypes());
+                if (declared != null) {
+                    policies.putIfAbsent(declared, policy);
+                }
+            }
+        }, method -> method.isAnnotationPresent(Trace.class) && !method.isBridge());
+        return bean;
+    }
+
+    public TraceSampler sampler(Method method) {
+        Policy policy = policies.get(method);
+        return policy == null ? null : policy.sampler;
+    }
+
+    private Policy policy(Method method, Trace trace, long now) {
+        Policy policy = policies.get(method);
+        if (policy == null) {
+            // 후처리기를 거치지 않은 프록시/위빙된 클래스만 여기로 온다.
+            policy = policies.computeIfAbsent(method, m -> newPolicy(m, trace, now));
+        }
+        return policy;
+    }
+
+    private Policy newPolicy(Method method, Trace trace, long now) {
+        Policy policy = new Policy(method, trace, now);
+        synchronized (this) {
+            Map<Trace, Policy> next = new IdentityHashMap<>(byAnnotation);
+            next.put(trace, policy);
+            byAnnotation = next;
+        }
+        return policy;
+    }
+
+    private void emit(JoinPoint joinPoint, Span span) {
+        if (sink != null) {
+            sink.record(span, joinPoint.getArgs());
+            return;
+        }
+        log.info("[trace] {}:{}<{} {}{} args={} {}us self={}us{}", span.traceId(), span.spanId(), span.parentId(),
+                "|   ".repeat(span.depth()), joinPoint.getSignature(), new LazyArgs(joinPoint, span.signatureId()),
+                TimeUnit.NANOSECONDS.toMicros(span.durationNanos()), TimeUnit.NANOSECONDS.toMicros(span.selfNanos()),
+                span.failed() ? " ERROR" : "");
+    }
+
+    private static final class Policy {
+
+        final int signatureId;
+        final TraceSampler sampler;
+        final long slowNanos;
+
+        Policy(Method method, Trace trace, long now) {
+            this.signatureId = SignatureRegistry.getInstance().id(method);
+            this.sampler = new TraceSampler(trace.samplesPerSecond(), now);
+            this.slowNanos = TimeUnit.MILLISECONDS.toNanos(trace.slowThreshold());
+        }
+    }
+
+    private static final class LazyArgs {
+
+        private final JoinPoint joinPoint;
+        private final int signatureId;
+
+        LazyArgs(JoinPoint joinPoint, int signatureId) {
+            this.joinPoint = joinPoint;
+            this.signatureId = signatureId;
+        }
 
-    // @annotation(hello.aop.exam.annotation.Trace) 포인트컷을 사용해서 @Trace 가 붙은 메서드에 어드바이스를 적용한다.
-    @Before("@annotation(hello.aop.exam.annotation.Trace)")
-    public void doTrace(JoinPoint joinPoint) {
-        Object[] args = joinPoint.getArgs();
-        log.info("[trace] {} args={}", joinPoint.getSignature(), args);
+        @Override
+        public String toString() {
+            return SignatureRegistry.getInstance().renderer(signatureId).format(joinPoint.getArgs());
+        }
     }
 }
@@ -0,0 +1,11 @@
+package hello.aop.exam.exception;
+
+/**
+ * 벌크헤드에 자리가 없어서 호출을 거절했을 때 던지는 예외 (스택 트레이스 없음)
+ */
+public class BulkheadFullException extends CallRejectedException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package hello.aop.exam.exception;
+
+/**
+ * 서킷 브레이커가 열려 있어서 호출을 막았을 때 던지는 예외
+ * 열린 브레이커는 빠르게 거절하는 것이 목적이므로 스택 트레이스를 만들지 않는다.
+ */
+public class CallNotPermittedException extends CallRejectedException {
+
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package hello.aop.exam.exception;
+
+/**
+ * 보호 장치(서킷 브레이커, 벌크헤드, 적응형 한도, 속도 제한)가 호출을 거절했을 때 던지는 예외들의 공통 타입
+ * 부하를 덜어내려고 거절한 것이므로 RetryClassifier 는 이 타입을 재시도하지 않는다. (재시도하면 덜어낸 부하를 다시 싣는다)
+ * 거절은 빨라야 하므로 스택 트레이스를 만들지 않는다.
+ */
+public abstract class CallRejectedException extends RuntimeException {
+
+    protected CallRejectedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,11 @@
+package hello.aop.exam.exception;
+
+/**
+ * @Timeout 으로 지정한 마감 시간을 넘겼을 때 던지는 예외 (스택 트레이스 없음)
+ */
+public class CallTimeoutException extends RuntimeException {
+
+    public CallTimeoutException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
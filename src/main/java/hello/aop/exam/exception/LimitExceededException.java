@@ -0,0 +1,11 @@
+package hello.aop.exam.exception;
+
+/**
+ * 적응형 동시성 한도를 넘어서 호출을 바로 버렸을 때 던지는 예외 (스택 트레이스 없음)
+ */
+public class LimitExceededException extends CallRejectedException {
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package hello.aop.exam.exception;
+
+/**
+ * @RateLimit 한도를 넘은 호출을 거절할 때 던지는 예외 (스택 트레이스 없음)
+ */
+public class RateLimitExceededException extends CallRejectedException {
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,133 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.exception.LimitExceededException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 적응형 동시성 한도 (TCP Vegas 방식)
+ *  - 지금까지 본 가장 짧은 응답 시간(minRtt)을 "대기열 없는" 기준으로 삼는다.
+ *  - 구간(window)마다 평균 응답 시간으로 대기열 길이를 추정한다. queue = limit * (1 - minRtt / rtt)
+ *  - 대기열이 alpha 보다 짧으면 한도를 늘리고, beta 보다 길면 줄인다. 그 사이면 그대로 둔다.
+ *  - 한도를 넘는 호출은 기다리게 하지 않고 바로 LimitExceededException 으로 버린다. (대기열이 쌓이기 전에 덜어낸다)
+ *
+ * 표본은 LongAdder 에 모으고, 구간이 끝났을 때 CAS 에 이긴 스레드 하나만 한도를 다시 계산한다. (락 없음)
+ */
+public final class AdaptiveLimiter {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final int MIN_WINDOW_SAMPLES = 5;
+    private static final int PROBE_INTERVAL = 500; // 이 구간 수마다 minRtt 를 새로 잰다 (기준이 낡지 않도록)
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final LimitExceededException rejection;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile int limit;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAccumulator windowMinRtt = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private long minRtt = Long.MAX_VALUE; // 한도를 계산하는 스레드만 읽고 쓴다
+    private int windows;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rejection = new LimitExceededException("Concurrency limit exceeded: " + name);
+    }
+
+    /**
+     * 자리를 하나 얻는다. 한도가 차 있으면 기다리지 않고 바로 예외를 던진다.
+     * @return 호출 시작 시각, release() 에 그대로 넘긴다
+     */
+    public long acquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                throw rejection;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return System.nanoTime();
+    }
+
+    /**
+     * @param sample false 면 응답 시간을 한도 계산에 쓰지 않는다. (예외로 일찍 끝난 호출 등)
+     */
+    public void release(long startNanos, boolean sample) {
+        long now = System.nanoTime();
+        inFlight.decrementAndGet();
+        if (sample) {
+            long rtt = now - startNanos;
+            windowRttSum.add(rtt);
+            windowSamples.increment();
+            windowMinRtt.accumulate(rtt);
+        }
+
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowSamples.sum() >= MIN_WINDOW_SAMPLES
+                && windowStart.compareAndSet(start, now)) {
+            updateLimit();
+        }
+    }
+
+    private void updateLimit() {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttSum.sumThenReset();
+        long windowMin = windowMinRtt.getThenReset();
+        if (samples == 0) {
+            return;
+        }
+
+        if (++windows % PROBE_INTERVAL == 0) {
+            minRtt = windowMin;
+        } else {
+            minRtt = Math.min(minRtt, windowMin);
+        }
+
+        double rtt = (double) rttSum / samples;
+        int current = limit;
+        double queue = current * (1 - minRtt / rtt);
+        double log = Math.max(1, Math.log10(current));
+        double alpha = 3 * log;
+        double beta = 6 * log;
+
+        int next = current;
+        if (queue < alpha) {
+            if (inFlight.get() * 2 >= current) { // 한도의 절반도 안 쓰고 있으면 늘릴 근거가 없다
+                next = current + (int) log;
+            }
+        } else if (queue > beta) {
+            next = current - (int) log;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,62 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.annotation.Retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @Retry 의 백오프 설정으로 다음 재시도까지의 대기 시간(ms)을 계산한다.
+ * 상태가 없으므로 DECORRELATED 지터에 필요한 직전 대기 시간은 호출하는 쪽이 넘겨준다.
+ */
+public final class Backoff {
+
+    private final long initialDelay;
+    private final double multiplier;
+    private final long maxDelay;
+    private final Retry.Jitter jitter;
+
+    Backoff(long initialDelay, double multiplier, long maxDelay, Retry.Jitter jitter) {
+        this.initialDelay = Math.max(0, initialDelay);
+        this.multiplier = Math.max(1.0, multiplier);
+        this.maxDelay = Math.max(this.initialDelay, maxDelay);
+        this.jitter = jitter;
+    }
+
+    public static Backoff from(Retry retry) {
+        return new Backoff(retry.delay(), retry.multiplier(), retry.maxDelay(), retry.jitter());
+    }
+
+    /**
+     * @param retryCount    몇 번째 재시도인지 (1부터 시작)
+     * @param previousDelay 직전에 대기한 시간, 첫 재시도라면 0
+     */
+    public long nextDelay(int retryCount, long previousDelay) {
+        if (initialDelay == 0) {
+            return 0;
+        }
+
+        switch (jitter) {
+            case FULL:
+                return random(0, exponential(retryCount));
+            case DECORRELATED:
+                // previousDelay * 3 이 넘치지 않게 maxDelay 에서 먼저 자른다.
+                long upper = previousDelay > maxDelay / 3 ? maxDelay : Math.max(initialDelay, previousDelay * 3);
+                return random(initialDelay, upper);
+            default:
+                return exponential(retryCount);
+        }
+    }
+
+    // min ~ max (양끝 포함) 사이의 임의 값. max 가 Long.MAX_VALUE 여도 bound(max + 1)가 넘치지 않게 한다.
+    private static long random(long min, long max) {
+        if (max == Long.MAX_VALUE) {
+            return ThreadLocalRandom.current().nextLong(min, max);
+        }
+        return ThreadLocalRandom.current().nextLong(min, max + 1);
+    }
+
+    private long exponential(int retryCount) {
+        double delay = initialDelay * Math.pow(multiplier, retryCount - 1);
+        return delay >= maxDelay ? maxDelay : (long) delay;
+    }
+}
@@ -0,0 +1,75 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.annotation.Bulkhead;
+import hello.aop.exam.exception.BulkheadFullException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 벌크헤드 한 칸. 모드별 구현(SemaphoreBulkhead, ThreadPoolBulkhead)이 공통 지표를 여기에 기록한다.
+ */
+public abstract class BulkheadPool {
+
+    protected final String name;
+    protected final int maxConcurrent;
+    protected final long maxWaitNanos;
+    protected final BulkheadFullException rejection;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitSeen = new LongAccumulator(Math::max, 0);
+
+    protected BulkheadPool(String name, int maxConcurrent, long maxWaitMillis) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.rejection = new BulkheadFullException("Bulkhead is full: " + name);
+    }
+
+    public static BulkheadPool from(String name, Bulkhead bulkhead) {
+        if (bulkhead.mode() == Bulkhead.Mode.THREAD_POOL) {
+            return new ThreadPoolBulkhead(name, bulkhead.maxConcurrent(), bulkhead.maxWait(), bulkhead.queueCapacity());
+        }
+        return new SemaphoreBulkhead(name, bulkhead.maxConcurrent(), bulkhead.maxWait());
+    }
+
+    public abstract Object execute(Callable<Object> call) throws Exception;
+
+    public abstract int availableConcurrentCalls();
+
+    public String name() {
+        return name;
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    // 자리를 기다려야 했던 호출 수와 대기 시간 (바로 들어간 호출은 세지 않는다)
+    public long waitedCount() {
+        return waited.sum();
+    }
+
+    public long totalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public long maxWaitNanos() {
+        return maxWaitSeen.get();
+    }
+
+    protected void recordWait(long nanos) {
+        waited.increment();
+        waitNanos.add(nanos);
+        maxWaitSeen.accumulate(nanos);
+    }
+
+    protected BulkheadFullException reject() {
+        rejected.increment();
+        return rejection;
+    }
+}
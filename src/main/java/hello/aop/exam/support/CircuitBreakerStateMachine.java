@@ -0,0 +1,178 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.annotation.CircuitBreaker;
+import hello.aop.exam.exception.CallNotPermittedException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 메서드 하나의 서킷 브레이커 상태
+ * CLOSED -> (실패율 초과) -> OPEN -> (openDuration 경과) -> HALF_OPEN -> (시험 호출 모두 성공) -> CLOSED
+ *                                                              +-> (시험 호출 실패) -> OPEN
+ * 상태 전이는 모두 AtomicInteger CAS 로 하고, OPEN 상태의 거절은 volatile 읽기 두 번으로 끝난다.
+ *  - OPEN 으로 갈 때는 CAS 에 이긴 스레드만 잠깐 OPENING 에 머물면서 openUntil 을 쓰고 OPEN 으로 바꾼다.
+ *    (진 스레드가 openUntil 을 덮어쓰지 않고, OPEN 을 본 스레드는 항상 이번 openUntil 을 본다)
+ *  - 반개방은 회차(round)마다 번호를 붙인다. acquirePermission 은 시험 호출로 허용한 호출에 그 회차를 돌려주고,
+ *    HALF_OPEN 의 성공/실패는 이번 회차의 시험 호출만 센다. (상태가 바뀌기 전에 들어온 호출이나 지난 회차의 시험 호출은 세지 않는다)
+ */
+public final class CircuitBreakerStateMachine {
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+    private static final int OPENING = 3; // OPEN 으로 가는 중 (밖에서는 OPEN 으로 보인다)
+
+    // 시험 호출이 아닌 허용 (CLOSED 상태에서 허용한 호출)
+    public static final int NOT_TRIAL = 0;
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final SlidingWindow window;
+    private final CallNotPermittedException rejection;
+
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+    // 둘 다 상위 32비트는 반개방 회차, 하위 32비트는 남은 시험 호출 수 / 이번 회차에 성공한 시험 호출 수
+    private final AtomicLong halfOpenPermits = new AtomicLong();
+    private final AtomicLong halfOpenSuccesses = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+    private volatile long openUntil;
+
+    public CircuitBreakerStateMachine(String name, int failureRateThreshold, int minimumCalls,
+                                      long windowMillis, long openMillis, int halfOpenCalls) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.window = new SlidingWindow(windowMillis, 10);
+        // 스택 트레이스가 없는 예외라 하나를 만들어 두고 재사용한다.
+        this.rejection = new CallNotPermittedException("CircuitBreaker is OPEN: " + name);
+    }
+
+    public static CircuitBreakerStateMachine from(String name, CircuitBreaker circuitBreaker) {
+        return new CircuitBreakerStateMachine(name, circuitBreaker.failureRateThreshold(), circuitBreaker.minimumCalls(),
+                circuitBreaker.window(), circuitBreaker.openDuration(), circuitBreaker.halfOpenCalls());
+    }
+
+    /**
+     * 호출을 허용할지 결정한다. 허용하지 않으면 CallNotPermittedException 을 던진다.
+     * @return 시험 호출로 허용했으면 반개방 회차(0 보다 큼), 아니면 NOT_TRIAL. 호출이 끝나면 onSuccess/onFailure 에 그대로 넘긴다.
+     */
+    public int acquirePermission() {
+        int current = state.get();
+        if (current == CLOSED) {
+            return NOT_TRIAL;
+        }
+        if (current == OPENING || (current == OPEN && System.nanoTime() - openUntil < 0)) {
+            reject();
+        }
+        if (current == OPEN && state.compareAndSet(OPEN, HALF_OPEN)) {
+            long round = nextRound(halfOpenPermits.get());
+            halfOpenSuccesses.set(round << 32);
+            halfOpenPermits.set(round << 32 | halfOpenCalls);
+        }
+        int round = tryHalfOpenPermit();
+        if (round < 0) {
+            reject();
+        }
+        return round;
+    }
+
+    /**
+     * @param permit acquirePermission 이 돌려준 값
+     */
+    public void onSuccess(int permit) {
+        window.recordSuccess();
+        if (permit != NOT_TRIAL && countTrialSuccess(permit) >= halfOpenCalls && state.compareAndSet(HALF_OPEN, CLOSED)) {
+            window.reset();
+        }
+    }
+
+    /**
+     * @param permit acquirePermission 이 돌려준 값
+     */
+    public void onFailure(int permit) {
+        window.recordFailure();
+        int current = state.get();
+        if (current == HALF_OPEN) {
+            if (permit != NOT_TRIAL && permit == (int) (halfOpenPermits.get() >>> 32)) {
+                open(HALF_OPEN);
+            }
+        } else if (current == CLOSED && failureRateExceeded()) {
+            open(CLOSED);
+        }
+    }
+
+    public State state() {
+        int current = state.get();
+        return current == OPENING ? State.OPEN : State.values()[current];
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return 받은 시험 호출의 회차. 그 사이에 회로가 닫혔으면 NOT_TRIAL, 받을 수 없으면 -1
+     */
+    private int tryHalfOpenPermit() {
+        long permits;
+        do {
+            int current = state.get();
+            if (current == CLOSED) {
+                return NOT_TRIAL; // 그 사이에 다른 스레드가 회로를 닫았다.
+            }
+            permits = halfOpenPermits.get();
+            if (current != HALF_OPEN || (int) permits <= 0) {
+                return -1;
+            }
+        } while (!halfOpenPermits.compareAndSet(permits, permits - 1));
+        return (int) (permits >>> 32);
+    }
+
+    /**
+     * @return 이번 회차에 성공한 시험 호출 수. 이미 끝난 회차의 시험 호출이면 0
+     */
+    private int countTrialSuccess(int round) {
+        long successes;
+        do {
+            successes = halfOpenSuccesses.get();
+            if ((int) (successes >>> 32) != round) {
+                return 0;
+            }
+        } while (!halfOpenSuccesses.compareAndSet(successes, successes + 1));
+        return (int) successes + 1;
+    }
+
+    // 회차는 1 부터 Integer.MAX_VALUE 까지 돌려 쓴다. (0 은 NOT_TRIAL, 음수는 거절)
+    private static long nextRound(long permits) {
+        int round = (int) (permits >>> 32) + 1;
+        return round > 0 ? round : 1;
+    }
+
+    private boolean failureRateExceeded() {
+        long[] counts = window.snapshot();
+        long total = counts[0] + counts[1];
+        return total >= minimumCalls && counts[1] * 100 >= total * failureRateThreshold;
+    }
+
+    private void open(int from) {
+        if (!state.compareAndSet(from, OPENING)) {
+            return; // 다른 스레드가 먼저 전이했다.
+        }
+        halfOpenPermits.set(halfOpenPermits.get() & ~0xFFFFFFFFL); // 회차는 두고 남은 시험 호출만 없앤다
+        openUntil = System.nanoTime() + openNanos;
+        state.set(OPEN);
+    }
+
+    private void reject() {
+        rejected.increment();
+        throw rejection;
+    }
+}
@@ -0,0 +1,253 @@
+package hello.aop.exam.support;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 해시드 휠 타이머
+ *  - 시간을 tick 단위로 나눈 원형 버킷(wheel)에 만료 작업을 걸어두고, 워커 스레드 하나가 tick 마다 버킷 하나만 확인한다.
+ *  - 호출마다 스레드나 ScheduledFuture 를 만들지 않으므로 초당 수십만 건의 마감 시간을 걸고 취소해도 싸다.
+ *  - 등록과 취소는 동시 큐에 넣기만 하고, 버킷(연결 리스트)은 워커 스레드만 만진다. (락 없음)
+ *  - 정확도는 tick 단위이다. (만료는 최대 tick 만큼 늦을 수 있다)
+ *  - close() 하면 워커 스레드가 아직 만료되지 않은 작업을 모두 취소하고 끝난다. (취소된 작업은 실행되지 않는다)
+ */
+public final class HashedWheelTimer implements Closeable {
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime = System.nanoTime();
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final LongAdder expired = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1; // 2의 거듭제곱으로 올림
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("timer is closed: " + worker.getName());
+        }
+        Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + unit.toNanos(delay));
+        pending.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        if (!running) {
+            // close() 와 겹쳐서 워커가 이미 큐를 비웠을 수 있다. 남겨두면 영원히 pending 으로 남는다.
+            timeout.cancel();
+            throw new IllegalStateException("timer is closed: " + worker.getName());
+        }
+        return timeout;
+    }
+
+    /**
+     * 워커 스레드를 멈춘다. 아직 만료되지 않은 작업은 워커 스레드가 끝나기 전에 모두 취소한다.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 아직 만료되지도 취소되지도 않은 작업 수 (휠 점유)
+    public long pendingCount() {
+        return pending.get();
+    }
+
+    public long expiredCount() {
+        return expired.sum();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            removeCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+        cancelAll();
+    }
+
+    // 버킷은 워커 스레드만 만지므로 정리도 워커 스레드가 끝나기 직전에 한다.
+    private void cancelAll() {
+        for (Bucket bucket : wheel) {
+            bucket.cancelAll();
+        }
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            timeout.cancel();
+        }
+        cancelledTimeouts.clear();
+    }
+
+    private void transferPending() {
+        // 한 tick 에 너무 많이 옮기느라 만료가 밀리지 않도록 상한을 둔다.
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() != Timeout.INIT) {
+                continue; // 휠에 들어가기 전에 취소됨
+            }
+            long ticks = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            long target = Math.max(ticks, tick); // 이미 지난 마감은 이번 tick 에 처리
+            wheel[(int) (target & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    public static final class Timeout {
+
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+
+        // 아래 필드는 워커 스레드만 사용한다.
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return 취소에 성공하면 true, 이미 만료(작업 실행)됐거나 취소됐으면 false
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            timer.pending.decrementAndGet();
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            timer.pending.decrementAndGet();
+            timer.expired.increment();
+            try {
+                task.run();
+            } catch (Throwable ignored) {
+                // 작업 하나의 실패로 워커 스레드가 죽으면 안 된다.
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state.get() == Timeout.CANCELLED) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void cancelAll() {
+            while (head != null) {
+                Timeout timeout = head;
+                remove(timeout);
+                timeout.cancel();
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return; // 이미 빠졌다
+            }
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
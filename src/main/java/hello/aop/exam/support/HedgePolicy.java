@@ -0,0 +1,68 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.annotation.Hedge;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Hedge 가 붙은 메서드 하나에 대한 헤지 정책과 통계
+ *  - 헤지 비율 상한은 RetryBudget 을 그대로 쓴다. 호출마다 maxHedgeRatio 만큼 적립하고 헤지 한 번에 1개를 쓴다.
+ */
+public final class HedgePolicy {
+
+    private static final long MIN_SAMPLES = 20; // percentile 을 믿기 위한 최소 표본 수
+
+    private final long fixedDelayNanos;
+    private final int percentile;
+    private final LatencyHistogram latency = new LatencyHistogram(10_000);
+    private final RetryBudget budget;
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private HedgePolicy(long fixedDelayMillis, int percentile, double maxHedgeRatio) {
+        this.fixedDelayNanos = fixedDelayMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(fixedDelayMillis);
+        this.percentile = percentile;
+        this.budget = new RetryBudget(maxHedgeRatio, 10);
+    }
+
+    public static HedgePolicy from(Hedge hedge) {
+        return new HedgePolicy(hedge.delay(), hedge.percentile(), hedge.maxHedgeRatio());
+    }
+
+    /**
+     * @return 헤지 요청을 보내기 전 기다릴 시간(ns). 아직 기준을 정할 수 없으면 -1
+     */
+    public long hedgeDelayNanos() {
+        return fixedDelayNanos >= 0 ? fixedDelayNanos : latency.percentile(percentile, MIN_SAMPLES);
+    }
+
+    public void onCall() {
+        budget.onSuccess();
+    }
+
+    public boolean tryAcquireHedge() {
+        if (!budget.tryAcquire()) {
+            return false;
+        }
+        hedged.increment();
+        return true;
+    }
+
+    public void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    public void recordHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    public long hedgedCount() {
+        return hedged.sum();
+    }
+
+    // 헤지 요청이 먼저 끝나서 결과로 쓰인 횟수
+    public long hedgeWinCount() {
+        return hedgeWins.sum();
+    }
+}
@@ -0,0 +1,90 @@
+package hello.aop.exam.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 키별 토큰 버킷 묶음 (크기 제한 있는 동시 맵)
+ *  - 키마다 TokenBucket 을 하나씩 ConcurrentHashMap 에 둔다. 전역 락이 없으므로 코어 수가 많아도 병목이 되지 않는다.
+ *  - 키 수가 maxKeys 에 닿으면 쉬고 있는(가득 찬) 버킷을 지운다. 가득 찬 버킷은 새 버킷과 같으므로 지워도 동작이 바뀌지 않는다.
+ *    지우는 동안 다른 스레드가 같은 버킷에서 토큰을 꺼내지 못하게 먼저 TokenBucket.tryRetire 로 닫고 나서 그 버킷일 때만 지운다.
+ *    닫힌 버킷을 잡은 스레드는 맵에서 새 버킷을 다시 찾는다. (닫힌 버킷에서 꺼낸 토큰이 사라지고 새 버킷이 또 가득 차는 일이 없다)
+ *  - 그래도 자리가 없으면 새 키는 공용 overflow 버킷 하나를 같이 쓴다. (메모리는 제한하고 처리율 제한은 유지)
+ */
+public final class KeyedTokenBuckets {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxKeys;
+    private final Map<Object, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public KeyedTokenBuckets(double permitsPerSecond, int burst, int maxKeys) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxKeys = maxKeys;
+        this.overflow = new TokenBucket(permitsPerSecond, burst);
+    }
+
+    public boolean tryAcquire(Object key) {
+        long now = System.nanoTime();
+        while (true) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = newBucket(key, now);
+            }
+            if (bucket.tryAcquire(now)) {
+                return true;
+            }
+            if (!bucket.isRetired()) {
+                rejected.increment();
+                return false;
+            }
+            buckets.remove(key, bucket); // 정리하던 스레드보다 먼저 왔으면 대신 지우고 다시 찾는다
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public long evictedCount() {
+        return evicted.sum();
+    }
+
+    private TokenBucket newBucket(Object key, long now) {
+        if (buckets.size() >= maxKeys) {
+            evictIdle(now);
+            if (buckets.size() >= maxKeys) {
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, burst));
+    }
+
+    private void evictIdle(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return; // 다른 스레드가 이미 정리 중
+        }
+        try {
+            for (Map.Entry<Object, TokenBucket> entry : buckets.entrySet()) {
+                TokenBucket bucket = entry.getValue();
+                if (bucket.tryRetire(now)) {
+                    buckets.remove(entry.getKey(), bucket);
+                    evicted.increment();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package hello.aop.exam.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 락 없는 지연 시간 히스토그램
+ *  - 2의 거듭제곱 구간을 8개로 나눈 로그 버킷(오차 12.5% 이내)에 AtomicLongArray 로 센다.
+ *  - windowMillis 마다 새 버킷으로 교체하고 직전 구간까지만 합쳐서 보므로 "최근" 분포가 된다.
+ *  - 백분위 계산은 버킷 전체를 훑어야 하므로 결과를 잠깐(100ms) 캐시해 둔다.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = 64 * SUB_COUNT;
+    private static final long CACHE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final long windowNanos;
+    private final AtomicReference<Window> current;
+    private volatile Window previous;
+
+    private volatile long cachedAt = System.nanoTime() - CACHE_NANOS;
+    private volatile int cachedPercentile = -1;
+    private volatile long cachedValue = -1;
+
+    public LatencyHistogram(long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.current = new AtomicReference<>(new Window(System.nanoTime()));
+        this.previous = new Window(System.nanoTime());
+    }
+
+    public void record(long nanos) {
+        Window window = rotateIfNeeded(System.nanoTime());
+        window.counts.incrementAndGet(index(Math.max(1, nanos)));
+    }
+
+    /**
+     * @return 최근 분포의 percentile 값(ns). 표본이 minSamples 보다 적으면 -1
+     */
+    public long percentile(int percentile, long minSamples) {
+        long now = System.nanoTime();
+        if (cachedPercentile == percentile && now - cachedAt < CACHE_NANOS) {
+            return cachedValue;
+        }
+        Window window = rotateIfNeeded(now);
+        Window before = previous;
+
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += window.counts.get(i) + before.counts.get(i);
+        }
+        long value = -1;
+        if (total >= minSamples && total > 0) {
+            long rank = (total * percentile + 99) / 100;
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += window.counts.get(i) + before.counts.get(i);
+                if (seen >= rank) {
+                    value = upperBound(i);
+                    break;
+                }
+            }
+        }
+        cachedValue = value;
+        cachedPercentile = percentile;
+        cachedAt = now;
+        return value;
+    }
+
+    private Window rotateIfNeeded(long now) {
+        Window window = current.get();
+        if (now - window.start < windowNanos) {
+            return window;
+        }
+        Window next = new Window(now);
+        if (current.compareAndSet(window, next)) {
+            previous = window;
+            return next;
+        }
+        return current.get();
+    }
+
+    private static int index(long nanos) {
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent < SUB_BITS) {
+            return (int) nanos;
+        }
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        int sub = index % SUB_COUNT;
+        return ((long) (SUB_COUNT + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    private static final class Window {
+        final long start;
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        Window(long start) {
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package hello.aop.exam.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 재시도 예산 (메서드별 토큰 버킷)
+ *  - 성공한 호출마다 ratio 만큼 토큰을 적립하고, 재시도 한 번에 토큰 1개를 쓴다.
+ *  - 따라서 재시도는 최근 성공 호출의 ratio 비율을 넘지 못한다. (capacity 로 적립 상한을 두어 오래된 성공은 잊는다)
+ *  - 토큰이 없으면 재시도하지 않고 바로 실패한다. 장애 난 대상에 n배 부하가 몰리는 재시도 폭주를 막는다.
+ *  - 잔액은 1/1000 토큰 단위의 AtomicLong 하나로 관리하고 CAS 로만 갱신한다. (락 없음)
+ */
+public final class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+    private final LongAdder exhausted = new LongAdder();
+
+    /**
+     * @param ratio    성공 1회당 적립할 토큰 수 (0.2 면 성공 5번에 재시도 1번)
+     * @param capacity 처음 잔액이자 최대 잔액(토큰 수)
+     */
+    public RetryBudget(double ratio, int capacity) {
+        this.deposit = (long) (Math.max(0, ratio) * SCALE);
+        this.capacity = Math.max(0, capacity) * SCALE;
+        this.balance = new AtomicLong(this.capacity);
+    }
+
+    public void onSuccess() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return; // 이미 가득 차 있으면 쓰지 않는다. (정상 상황의 대부분)
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                exhausted.increment();
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double available() {
+        return (double) balance.get() / SCALE;
+    }
+
+    // 예산이 모자라 재시도를 포기한 횟수
+    public long exhaustedCount() {
+        return exhausted.sum();
+    }
+}
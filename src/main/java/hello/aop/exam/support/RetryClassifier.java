@@ -0,0 +1,61 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.exception.CallRejectedException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 예외 타입으로 재시도 여부를 결정한다.
+ *  - noRetryOn 에 해당하면 재시도하지 않고, 아니면 retryOn 에 해당할 때만 재시도한다.
+ *  - 보호 장치의 거절(CallRejectedException: 서킷 브레이커, 벌크헤드, 적응형 한도, 속도 제한)은 항상 재시도하지 않는다.
+ *  - 예외 클래스별 결과는 처음 한 번만 계산하고 캐시한다. 실패 경로에서 매번 isAssignableFrom 을 돌지 않는다.
+ */
+public final class RetryClassifier {
+
+    private final Class<? extends Throwable>[] retryOn;
+    private final Class<? extends Throwable>[] noRetryOn;
+    private final Map<Class<?>, Boolean> decisions = new ConcurrentHashMap<>();
+    private final LongAdder avoided = new LongAdder();
+
+    public RetryClassifier(Class<? extends Throwable>[] retryOn, Class<? extends Throwable>[] noRetryOn) {
+        this.retryOn = retryOn;
+        this.noRetryOn = noRetryOn;
+    }
+
+    public boolean isRetryable(Throwable e) {
+        Boolean decision = decisions.get(e.getClass());
+        if (decision == null) {
+            decision = decisions.computeIfAbsent(e.getClass(), this::classify);
+        }
+        return decision;
+    }
+
+    // 분류기 덕분에 하지 않은 재시도 횟수를 더한다.
+    public void recordAvoided(int retries) {
+        if (retries > 0) {
+            avoided.add(retries);
+        }
+    }
+
+    public long avoidedRetries() {
+        return avoided.sum();
+    }
+
+    private boolean classify(Class<?> type) {
+        if (CallRejectedException.class.isAssignableFrom(type) || matches(noRetryOn, type)) {
+            return false;
+        }
+        return matches(retryOn, type);
+    }
+
+    private static boolean matches(Class<? extends Throwable>[] types, Class<?> type) {
+        for (Class<? extends Throwable> candidate : types) {
+            if (candidate.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
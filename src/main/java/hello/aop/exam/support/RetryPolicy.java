@@ -0,0 +1,65 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.annotation.Retry;
+
+/**
+ * @Retry 가 붙은 메서드 하나에 대한 재시도 정책
+ * 애노테이션을 매 호출마다 해석하지 않도록 RetryAspect 가 메서드별로 한 번만 만들어 둔다.
+ */
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final Backoff backoff;
+    private final RetryBudget budget; // null 이면 예산 제한 없음
+    private final RetryClassifier classifier;
+
+    private RetryPolicy(int maxAttempts, Backoff backoff, RetryBudget budget, RetryClassifier classifier) {
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.budget = budget;
+        this.classifier = classifier;
+    }
+
+    public static RetryPolicy from(Retry retry) {
+        RetryBudget budget = retry.budgetCapacity() > 0 ? new RetryBudget(retry.budgetRatio(), retry.budgetCapacity()) : null;
+        return new RetryPolicy(retry.value(), Backoff.from(retry), budget, new RetryClassifier(retry.retryOn(), retry.noRetryOn()));
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public Backoff backoff() {
+        return backoff;
+    }
+
+    public RetryBudget budget() {
+        return budget;
+    }
+
+    public RetryClassifier classifier() {
+        return classifier;
+    }
+
+    /**
+     * @param retryCount 방금 실패한 시도가 몇 번째인지. 재시도하지 않기로 하면 남은 시도 수를 "피한 재시도"로 기록한다.
+     */
+    public boolean isRetryable(Throwable e, int retryCount) {
+        if (classifier.isRetryable(e)) {
+            return true;
+        }
+        classifier.recordAvoided(maxAttempts - retryCount);
+        return false;
+    }
+
+    public void onSuccess() {
+        if (budget != null) {
+            budget.onSuccess();
+        }
+    }
+
+    // 재시도 직전에 호출한다. false 면 예산이 바닥난 것이므로 바로 실패해야 한다.
+    public boolean tryAcquireRetry() {
+        return budget == null || budget.tryAcquire();
+    }
+}
@@ -0,0 +1,34 @@
+package hello.aop.exam.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 비동기(CompletionStage) 재시도의 백오프에 쓰는 공유 스케줄러
+ *  - 호출마다 타이머나 스레드를 만들지 않고, 데몬 스레드 하나가 모든 백오프를 깨운다.
+ *  - delay() 가 돌려준 future 에 다음 시도를 이어 붙이면 대기하는 동안 아무 스레드도 붙잡지 않는다.
+ * 동기 메서드는 결과를 돌려줘야 하므로 어차피 호출 스레드가 기다려야 한다. 그래서 여기를 거치지 않고 RetryAspect 에서 그냥 잔다.
+ */
+public final class RetryScheduler {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "retry-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RetryScheduler() {
+    }
+
+    public static CompletableFuture<Void> delay(long millis) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (millis <= 0) {
+            future.complete(null);
+            return future;
+        }
+        SCHEDULER.schedule(() -> future.complete(null), millis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+}
@@ -0,0 +1,128 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.annotation.SelfProxy;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @SelfProxy 필드/메서드에 빈의 최종 객체(프록시)를 넣는다.
+ *
+ * 자동 프록시 생성기(AnnotationAwareAspectJAutoProxyCreator)도 postProcessAfterInitialization 에서 프록시를 만든다.
+ * 이 후처리기는 Ordered 를 구현하지 않으므로, Ordered 인 자동 프록시 생성기보다 항상 뒤에 실행된다.
+ * 따라서 여기서 받는 bean 이 컨테이너가 최종적으로 노출하는 객체이고, 프록시 안쪽의 실제 객체(target)에 그것을 넣어준다.
+ * 적용할 어드바이스가 없어서 프록시가 아니면 자기 자신이 들어간다.
+ *
+ * 순환 참조 중에 다른 빈이 이 빈을 먼저 가져간 경우(early reference)에는 프록시가 getEarlyBeanReference 에서 미리 만들어지고,
+ * 자동 프록시 생성기는 postProcessAfterInitialization 에서 실제 객체를 그대로 돌려준다. (컨테이너가 나중에 미리 만든 프록시로 바꿔서 노출한다)
+ * 그래서 getEarlyBeanReference 에서도 마지막에 실행되어 미리 만든 최종 객체를 기억해 두고, 실제 객체가 넘어오면 그것을 대신 넣는다.
+ */
+@Component
+public class SelfProxyBeanPostProcessor implements SmartInstantiationAwareBeanPostProcessor {
+
+    // 클래스별 주입 지점 (리플렉션 탐색은 클래스마다 한 번만)
+    private final Map<Class<?>, List<Injection>> injections = new ConcurrentHashMap<>();
+    // 빈 이름 -> 순환 참조 때문에 미리 노출한 최종 객체 (초기화가 끝나면 지운다)
+    private final Map<String, Object> earlyReferences = new ConcurrentHashMap<>();
+
+    @Override
+    public Object getEarlyBeanReference(Object bean, String beanName) throws BeansException {
+        earlyReferences.put(beanName, bean);
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Object target = target(bean);
+        Object self = exposed(bean, target, beanName);
+        for (Injection injection : injections.computeIfAbsent(target.getClass(), this::findInjections)) {
+            if (!injection.type.isInstance(self)) {
+                throw new BeanCreationException(beanName, "@SelfProxy " + injection.member + " 에 " + self.getClass().getName()
+                        + " 를 넣을 수 없다. (JDK 동적 프록시라면 인터페이스 타입으로 받거나 proxyTargetClass=true 로 CGLIB 프록시를 쓰자)");
+            }
+            injection.inject(target, self);
+        }
+        return bean;
+    }
+
+    // 실제 객체가 넘어왔지만 같은 객체를 감싼 프록시를 이미 미리 노출했다면, 컨테이너가 노출하는 것은 그 프록시다.
+    private Object exposed(Object bean, Object target, String beanName) {
+        Object early = earlyReferences.isEmpty() ? null : earlyReferences.remove(beanName);
+        if (early == null || early == bean || bean != target) {
+            return bean;
+        }
+        if (target(early) != target) {
+            throw new BeanCreationException(beanName, "@SelfProxy 빈이 순환 참조로 미리 노출한 객체가 이 빈을 감싸고 있지 않다: "
+                    + early.getClass().getName());
+        }
+        return early;
+    }
+
+    // 프록시가 여러 겹이어도 가장 안쪽의 실제 객체까지 벗긴다
+    private Object target(Object bean) {
+        Object target = bean;
+        Object next;
+        while ((next = AopProxyUtils.getSingletonTarget(target)) != null) {
+            target = next;
+        }
+        return target;
+    }
+
+    private List<Injection> findInjections(Class<?> beanClass) {
+        List<Injection> result = new ArrayList<>();
+        Class<?> userClass = ClassUtils.getUserClass(beanClass);
+        ReflectionUtils.doWithFields(userClass, field -> {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                throw new IllegalStateException("@SelfProxy 필드는 static, final 이면 안 된다: " + field);
+            }
+            ReflectionUtils.makeAccessible(field);
+            result.add(new Injection(field, field.getType()));
+        }, field -> field.isAnnotationPresent(SelfProxy.class));
+        // 부모의 @SelfProxy 메서드를 재정의하면 doWithMethods 가 둘 다 찾으므로 가장 구체적인 메서드 하나로 모은다. (두 번 호출하지 않도록)
+        Set<Method> methods = new LinkedHashSet<>();
+        ReflectionUtils.doWithMethods(userClass, method -> methods.add(ClassUtils.getMostSpecificMethod(method, userClass)),
+                method -> AnnotationUtils.findAnnotation(method, SelfProxy.class) != null && !method.isBridge());
+        for (Method method : methods) {
+            if (method.getParameterCount() != 1) {
+                throw new IllegalStateException("@SelfProxy 메서드는 파라미터가 하나여야 한다: " + method);
+            }
+            ReflectionUtils.makeAccessible(method);
+            result.add(new Injection(method, method.getParameterTypes()[0]));
+        }
+        return result.isEmpty() ? List.of() : result;
+    }
+
+    private static final class Injection {
+
+        private final Object member;
+        private final Class<?> type;
+
+        Injection(Object member, Class<?> type) {
+            this.member = member;
+            this.type = type;
+        }
+
+        void inject(Object target, Object proxy) {
+            if (member instanceof Field) {
+                ReflectionUtils.setField((Field) member, target, proxy);
+            } else {
+                ReflectionUtils.invokeMethod((Method) member, target, proxy);
+            }
+        }
+    }
+}
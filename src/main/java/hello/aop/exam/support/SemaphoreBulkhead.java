@@ -0,0 +1,47 @@
+package hello.aop.exam.support;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 세마포어 모드: 호출 스레드에서 그대로 실행하고 동시 실행 수만 제한한다.
+ */
+public class SemaphoreBulkhead extends BulkheadPool {
+
+    private final Semaphore permits;
+
+    public SemaphoreBulkhead(String name, int maxConcurrent, long maxWaitMillis) {
+        super(name, maxConcurrent, maxWaitMillis);
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    public Object execute(Callable<Object> call) throws Exception {
+        if (!permits.tryAcquire()) {
+            acquireSlow();
+        }
+        try {
+            return call.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public int availableConcurrentCalls() {
+        return permits.availablePermits();
+    }
+
+    private void acquireSlow() throws InterruptedException {
+        if (maxWaitNanos <= 0) {
+            throw reject();
+        }
+        long start = System.nanoTime();
+        boolean acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        recordWait(System.nanoTime() - start);
+        if (!acquired) {
+            throw reject();
+        }
+    }
+}
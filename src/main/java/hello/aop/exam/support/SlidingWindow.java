@@ -0,0 +1,76 @@
+package hello.aop.exam.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 시간 기반 슬라이딩 윈도우 성공/실패 카운터
+ *  - 윈도우를 bucketCount 개의 버킷으로 나누고, 버킷마다 [epoch, 성공 수, 실패 수] 를 AtomicLongArray 에 담는다.
+ *  - epoch 가 현재 시간 구간과 다르면 CAS 로 버킷을 차지한 뒤 초기화해서 재사용한다. (synchronized 없음)
+ *  - 버킷을 비우는 순간 들어온 몇 건은 유실될 수 있지만, 실패율을 보는 용도로는 충분히 정확하다.
+ */
+public final class SlidingWindow {
+
+    private static final int EPOCH = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+    private static final int STRIDE = 3;
+    private static final long EMPTY = Long.MIN_VALUE / 2;
+
+    private final int bucketCount;
+    private final long bucketNanos;
+    private final long origin = System.nanoTime();
+    private final AtomicLongArray buckets;
+
+    public SlidingWindow(long windowMillis, int bucketCount) {
+        this.bucketCount = bucketCount;
+        this.bucketNanos = Math.max(1, windowMillis * 1_000_000 / bucketCount);
+        this.buckets = new AtomicLongArray(bucketCount * STRIDE);
+        reset();
+    }
+
+    public void recordSuccess() {
+        buckets.incrementAndGet(current() + SUCCESS);
+    }
+
+    public void recordFailure() {
+        buckets.incrementAndGet(current() + FAILURE);
+    }
+
+    /**
+     * @return [0] 성공 수, [1] 실패 수
+     */
+    public long[] snapshot() {
+        long epoch = epoch();
+        long success = 0;
+        long failure = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            int base = i * STRIDE;
+            if (epoch - buckets.get(base + EPOCH) < bucketCount) {
+                success += buckets.get(base + SUCCESS);
+                failure += buckets.get(base + FAILURE);
+            }
+        }
+        return new long[]{success, failure};
+    }
+
+    public void reset() {
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.set(i * STRIDE + EPOCH, EMPTY);
+        }
+    }
+
+    private long epoch() {
+        return (System.nanoTime() - origin) / bucketNanos;
+    }
+
+    private int current() {
+        long epoch = epoch();
+        int base = (int) (epoch % bucketCount) * STRIDE;
+        long seen = buckets.get(base + EPOCH);
+        if (seen < epoch && buckets.compareAndSet(base + EPOCH, seen, epoch)) {
+            buckets.set(base + SUCCESS, 0);
+            buckets.set(base + FAILURE, 0);
+        }
+        return base;
+    }
+}
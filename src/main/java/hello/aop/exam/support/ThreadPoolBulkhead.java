@@ -0,0 +1,118 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.trace.TraceExecutors;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 스레드 풀 모드: 전용 풀에서 실행하고 호출 스레드는 결과를 기다린다.
+ * 대기열에서 보낸 시간을 재서 maxWait 를 넘긴 작업은 실행하지 않고 거절한다. (이미 늦은 요청을 처리하느라 풀을 쓰지 않는다)
+ * 대기 통계(recordWait)에는 들어올 때 스레드가 모두 바빠서 대기열에서 자리를 기다린 작업만 센다.
+ * (고정 크기 풀은 한가한 스레드가 있어도 작업을 대기열을 거쳐 넘기므로, 대기열에 들어갔는지가 아니라 실행 중인 작업 수로 판단한다)
+ */
+public class ThreadPoolBulkhead extends BulkheadPool {
+
+    private final ThreadPoolExecutor executor;
+    // 넣었지만 아직 끝나지 않은 작업 수 (실행 중 + 대기열)
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ThreadPoolBulkhead(String name, int maxConcurrent, long maxWaitMillis, int queueCapacity) {
+        super(name, maxConcurrent, maxWaitMillis);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            Thread thread = new Thread(r, "bulkhead-" + name + "-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Object execute(Callable<Object> call) throws Exception {
+        long submitted = System.nanoTime();
+        boolean queued = inFlight.incrementAndGet() > maxConcurrent;
+        BulkheadTask future = new BulkheadTask(TraceExecutors.wrap(() -> {
+            long waited = System.nanoTime() - submitted;
+            if (queued) {
+                recordWait(waited);
+            }
+            if (maxWaitNanos > 0 && waited > maxWaitNanos) {
+                throw reject();
+            }
+            return call.call();
+        }));
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            throw reject();
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    @Override
+    public int availableConcurrentCalls() {
+        return maxConcurrent - executor.getActiveCount();
+    }
+
+    public int queueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 결과를 내기 직전에 inFlight 를 줄인다. (결과를 받은 호출자가 바로 다음 작업을 넣어도 대기로 세지 않도록)
+     * 대기열에서 취소되어 실행되지 않은 작업은 done() 에서 줄인다.
+     */
+    private final class BulkheadTask extends FutureTask<Object> {
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        BulkheadTask(Callable<Object> callable) {
+            super(callable);
+        }
+
+        @Override
+        protected void set(Object result) {
+            finish();
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            finish();
+            super.setException(t);
+        }
+
+        @Override
+        protected void done() {
+            finish();
+        }
+
+        private void finish() {
+            if (finished.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
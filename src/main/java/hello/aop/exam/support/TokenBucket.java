@@ -0,0 +1,56 @@
+package hello.aop.exam.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CAS 기반 토큰 버킷 (GCRA: generic cell rate algorithm)
+ *  - 토큰 수 대신 "다음 호출이 허용되는 이론상 시각(tat)" 하나만 AtomicLong 으로 저장한다.
+ *  - 호출마다 tat 를 interval 만큼 밀고, tat 가 현재보다 burst 이상 앞서 있으면 거절한다.
+ *  - 상태가 long 하나뿐이라 CAS 한 번으로 끝나고, tat 가 현재보다 과거면 가득 찬 새 버킷과 같다. (지워도 된다)
+ *  - 지울 때는 tryRetire() 로 tat 를 RETIRED 로 바꿔 둔다. 그 뒤로는 토큰을 내주지 않으므로,
+ *    지우는 도중에 이 버킷을 잡은 스레드도 토큰을 받지 못하고 새 버킷을 다시 찾게 된다.
+ */
+public final class TokenBucket {
+
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong tat;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000 / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * Math.max(1, burst);
+        // 과거 시각으로 시작해서 가득 찬 상태로 만든다. (호출하는 쪽이 만들기 전에 잰 now 로 불러도 첫 토큰을 받는다)
+        this.tat = new AtomicLong(System.nanoTime() - toleranceNanos);
+    }
+
+    public boolean tryAcquire(long now) {
+        long current;
+        long next;
+        do {
+            current = tat.get();
+            if (current == RETIRED) {
+                return false;
+            }
+            next = Math.max(current, now) + intervalNanos;
+            if (next - now > toleranceNanos) {
+                return false;
+            }
+        } while (!tat.compareAndSet(current, next));
+        return true;
+    }
+
+    /**
+     * 토큰이 가득 찬(오래 쉬고 있는) 버킷이면 더 쓰지 못하게 닫는다. 가득 찬지 확인하는 것과 닫는 것이 CAS 한 번이다.
+     * @return 닫았으면 true (맵에서 지워도 된다)
+     */
+    public boolean tryRetire(long now) {
+        long current = tat.get();
+        return current != RETIRED && current - now <= 0 && tat.compareAndSet(current, RETIRED);
+    }
+
+    public boolean isRetired() {
+        return tat.get() == RETIRED;
+    }
+}
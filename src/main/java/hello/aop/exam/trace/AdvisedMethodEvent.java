@@ -0,0 +1,39 @@
+package hello.aop.exam.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * 어드바이스가 적용된 메서드 실행 한 번 (JFR 이벤트)
+ * 걸린 시간은 JFR 이벤트의 begin/end 로 남는다. 같은 기록 안에서 GC, 락 대기 이벤트와 시간을 맞춰 볼 수 있다.
+ * 기본은 꺼져 있다. 모든 호출마다 남기면 default/profile 기록만 켜도 이벤트가 쏟아지기 때문이다.
+ * 켜려면 JFR 설정에서 hello.aop.AdvisedMethod 를 enabled 로 한다. threshold 기본값은 20 ms 이고, 모두 보려면 0 ms 로 준다.
+ */
+@Name("hello.aop.AdvisedMethod")
+@Label("Advised Method")
+@Description("AOP 어드바이스가 적용된 메서드 실행")
+@Category({"Hello AOP"})
+@StackTrace(false)
+@Enabled(false)
+@Threshold("20 ms")
+public class AdvisedMethodEvent extends Event {
+
+    @Label("Signature")
+    public String signature;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Exception")
+    public String exception;
+
+    @Label("Retry Attempt")
+    @Description("@Retry 안에서 실행된 몇 번째 시도인지 (재시도 밖이면 0)")
+    public int attempt;
+}
@@ -0,0 +1,119 @@
+package hello.aop.exam.trace;
+
+/**
+ * 인수 요약을 쓰는 고정 크기 버퍼 (재사용한다)
+ *  - 용량을 넘는 내용은 버리고, 잘렸으면 마지막 글자를 '…' 로 바꾼다.
+ *  - 숫자는 문자열을 만들지 않고 자릿수를 직접 쓴다.
+ */
+public final class ArgsBuffer {
+
+    private static final char TRUNCATED = '…';
+
+    private final char[] chars;
+    private int length;
+    private boolean truncated;
+
+    public ArgsBuffer(int capacity) {
+        this.chars = new char[capacity];
+    }
+
+    public void reset() {
+        length = 0;
+        truncated = false;
+    }
+
+    public boolean isFull() {
+        return length == chars.length;
+    }
+
+    public ArgsBuffer append(char c) {
+        if (length < chars.length) {
+            chars[length++] = c;
+        } else {
+            truncate();
+        }
+        return this;
+    }
+
+    public ArgsBuffer append(CharSequence value) {
+        int count = Math.min(value.length(), chars.length - length);
+        if (value instanceof String) {
+            ((String) value).getChars(0, count, chars, length);
+        } else {
+            for (int i = 0; i < count; i++) {
+                chars[length + i] = value.charAt(i);
+            }
+        }
+        length += count;
+        if (count < value.length()) {
+            truncate();
+        }
+        return this;
+    }
+
+    public ArgsBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        if (length + digits > chars.length) {
+            truncate();
+            return this;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * 16진수 (Object.toString() 의 해시 부분과 같은 모양)
+     */
+    public ArgsBuffer appendHex(int value) {
+        int digits = Math.max(1, (Integer.SIZE - Integer.numberOfLeadingZeros(value) + 3) / 4);
+        if (length + digits > chars.length) {
+            truncate();
+            return this;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            chars[i] = Character.forDigit(value & 0xf, 16);
+            value >>>= 4;
+        }
+        length += digits;
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    char[] chars() {
+        return chars;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private void truncate() {
+        if (!truncated && chars.length > 0) {
+            truncated = true;
+            chars[chars.length - 1] = TRUNCATED;
+            length = chars.length;
+        }
+    }
+}
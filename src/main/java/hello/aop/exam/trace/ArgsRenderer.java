@@ -0,0 +1,165 @@
+package hello.aop.exam.trace;
+
+import hello.aop.exam.annotation.Printable;
+import hello.aop.exam.annotation.Sensitive;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalAmount;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 메서드 하나의 인수를 ArgsBuffer 에 쓰는 렌더러
+ *  - 메서드마다 한 번, 파라미터 타입을 보고 파라미터별 렌더러를 미리 골라 둔다. (SignatureRegistry 가 등록할 때 만든다)
+ *  - 호출마다 리플렉션이나 Arrays.toString 없이 버퍼에 바로 쓰고, 버퍼 크기에서 자른다.
+ *  - @Sensitive 파라미터는 값 대신 "****"
+ *  - 배열, 컬렉션, 맵은 내용을 그리지 않고 크기만 남긴다. (예: byte[1024], List(3))
+ *  - 그 밖의 타입은 실행 시점 타입을 보고 고른다. toString() 은 길이가 짧다고 알려진 JDK 타입(숫자, UUID, 날짜/시간)과
+ *    @Printable 을 붙인 타입/파라미터에만 부르고, 나머지는 "타입이름@해시" 만 남긴다. (큰 객체의 toString 을 통째로 만들지 않는다)
+ */
+public final class ArgsRenderer {
+
+    private static final String REDACTED = "****";
+    private static final int LOG_BUDGET = 256;
+    private static final ThreadLocal<ArgsBuffer> LOG_BUFFER = ThreadLocal.withInitial(() -> new ArgsBuffer(LOG_BUDGET));
+
+    // toString() 을 불러도 되는 타입인지 (클래스마다 한 번만 판단)
+    private static final ClassValue<Boolean> PRINTABLE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            if (type.isAnnotationPresent(Printable.class)) {
+                return true;
+            }
+            // JDK 타입만 믿는다 (부트스트랩 로더에서 온 클래스). 사용자가 만든 Number 하위 클래스 등은 제외
+            return type.getClassLoader() == null
+                    && (Number.class.isAssignableFrom(type) || type == Boolean.class || type == Character.class
+                    || type == UUID.class || TemporalAccessor.class.isAssignableFrom(type) || TemporalAmount.class.isAssignableFrom(type));
+        }
+    };
+
+    private final ParamRenderer[] params;
+
+    private ArgsRenderer(ParamRenderer[] params) {
+        this.params = params;
+    }
+
+    public static ArgsRenderer of(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Annotation[][] annotations = method.getParameterAnnotations();
+        ParamRenderer[] params = new ParamRenderer[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (isPresent(annotations[i], Sensitive.class)) {
+                params[i] = (value, out) -> out.append(REDACTED);
+            } else if (isPresent(annotations[i], Printable.class)) {
+                params[i] = (value, out) -> out.append(String.valueOf(value));
+            } else {
+                params[i] = forType(types[i]);
+            }
+        }
+        return new ArgsRenderer(params);
+    }
+
+    public void render(Object[] args, ArgsBuffer out) {
+        for (int i = 0; i < args.length && !out.isFull(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            Object value = args[i];
+            if (value == null) {
+                out.append("null");
+                continue;
+            }
+            try {
+                if (i < params.length) {
+                    params[i].render(value, out);
+                } else {
+                    renderObject(value, out);
+                }
+            } catch (RuntimeException e) {
+                // 인수의 toString() 이 실패해도 기록(과 호출한 메서드의 결과)을 망치지 않는다
+                out.append("<toString failed: ").append(e.getClass().getSimpleName()).append('>');
+            }
+        }
+    }
+
+    /**
+     * 로그처럼 문자열이 필요한 곳에서 쓴다. 스레드별 버퍼에 그린 뒤 마지막에 문자열 하나만 만든다. (LOG_BUDGET 글자에서 자른다)
+     */
+    public String format(Object[] args) {
+        ArgsBuffer out = LOG_BUFFER.get();
+        out.reset();
+        out.append('[');
+        render(args, out);
+        out.append(']');
+        return out.toString();
+    }
+
+    private static boolean isPresent(Annotation[] annotations, Class<? extends Annotation> type) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType() == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ParamRenderer forType(Class<?> type) {
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return (value, out) -> out.append((CharSequence) value);
+        }
+        if (type == long.class || type == int.class || type == short.class || type == byte.class
+                || type == Long.class || type == Integer.class || type == Short.class || type == Byte.class) {
+            return (value, out) -> out.append(((Number) value).longValue());
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return (value, out) -> out.append((Boolean) value ? "true" : "false");
+        }
+        if (type == char.class || type == Character.class) {
+            return (value, out) -> out.append((char) (Character) value);
+        }
+        if (type.isEnum()) {
+            return (value, out) -> out.append(((Enum<?>) value).name());
+        }
+        if (type.isArray()) {
+            String prefix = type.getComponentType().getSimpleName() + "[";
+            return (value, out) -> out.append(prefix).append(Array.getLength(value)).append(']');
+        }
+        if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+            String prefix = type.getSimpleName() + "(";
+            return (value, out) -> out.append(prefix).append(size(value)).append(')');
+        }
+        return ArgsRenderer::renderObject;
+    }
+
+    // 선언 타입이 Object 처럼 넓으면 실제 값의 타입으로 고른다.
+    private static void renderObject(Object value, ArgsBuffer out) {
+        if (value instanceof CharSequence) {
+            out.append((CharSequence) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.append(((Number) value).longValue());
+        } else if (value instanceof Enum) {
+            out.append(((Enum<?>) value).name());
+        } else if (value.getClass().isArray()) {
+            out.append(value.getClass().getComponentType().getSimpleName()).append('[')
+                    .append(Array.getLength(value)).append(']');
+        } else if (value instanceof Collection || value instanceof Map) {
+            out.append(value.getClass().getSimpleName()).append('(').append(size(value)).append(')');
+        } else if (PRINTABLE.get(value.getClass())) {
+            out.append(String.valueOf(value));
+        } else {
+            out.append(value.getClass().getSimpleName()).append('@').appendHex(System.identityHashCode(value));
+        }
+    }
+
+    private static int size(Object value) {
+        return value instanceof Collection ? ((Collection<?>) value).size() : ((Map<?, ?>) value).size();
+    }
+
+    private interface ParamRenderer {
+        void render(Object value, ArgsBuffer out);
+    }
+}
@@ -0,0 +1,113 @@
+package hello.aop.exam.trace;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 링 버퍼에 기록만 넣고 바로 돌아가는 TraceSink
+ *  - 호출 스레드: 스팬(id, 부모, 시그니처 id, 시각, 걸린 시간, 예외 여부), 스레드, 인수 요약을 미리 만들어 둔 칸에 복사하고 끝 (I/O 없음)
+ *  - 소비자 스레드(trace-sink) 하나가 모인 기록을 batchSize 개씩 TraceRecordWriter 로 쓰고 flush 한다.
+ *    (텍스트: TextTraceWriter, 바이너리 세그먼트: SegmentTraceWriter)
+ *  - 버퍼가 가득 차면 OverflowPolicy 에 따라 버리거나(DROP, droppedCount 증가) 호출 스레드를 기다리게 한다(BLOCK).
+ */
+@Slf4j
+public class AsyncTraceSink implements TraceSink, Closeable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final TraceRingBuffer buffer;
+    private final TraceRecordWriter writer;
+    private final int batchSize;
+    private final Thread consumer;
+    private final TraceRingBuffer.RecordHandler writeRecord = this::write;
+
+    private volatile boolean running = true;
+    private long written;
+
+    public AsyncTraceSink(TraceRecordWriter writer, int capacity, TraceRingBuffer.OverflowPolicy policy, int batchSize) {
+        this.buffer = new TraceRingBuffer(capacity, policy);
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.consumer = new Thread(this::consume, "trace-sink");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void record(Span span, Object[] args) {
+        long sequence = buffer.claim();
+        if (sequence < 0) {
+            return; // DROP: 가득 차서 버렸다 (droppedCount 에 세어 둠)
+        }
+        // 받은 칸은 무슨 일이 있어도 발행해야 한다. 발행하지 않으면 소비자가 그 칸에서 영원히 멈춘다.
+        try {
+            TraceRecord record = buffer.slot(sequence);
+            record.copy(span);
+            record.threadName = Thread.currentThread().getName();
+            record.writeArgs(SignatureRegistry.getInstance().renderer(span.signatureId), args);
+        } finally {
+            buffer.publish(sequence);
+        }
+    }
+
+    public long droppedCount() {
+        return buffer.droppedCount();
+    }
+
+    /**
+     * 소비자 스레드가 파일에 쓴 기록 수
+     */
+    public synchronized long writtenCount() {
+        return written;
+    }
+
+    private void consume() {
+        while (running) {
+            if (drainOnce() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        while (drainOnce() > 0) {
+            // 종료 전에 남은 기록을 모두 쓴다.
+        }
+    }
+
+    private synchronized int drainOnce() {
+        int count = buffer.drain(writeRecord, batchSize);
+        if (count > 0) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                log.warn("[trace-sink] flush failed", e);
+            }
+            written += count;
+        }
+        return count;
+    }
+
+    private void write(TraceRecord record) {
+        try {
+            writer.write(record);
+        } catch (IOException e) {
+            log.warn("[trace-sink] write failed", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package hello.aop.exam.trace;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 호출 경로(바깥 경로 + 시그니처)를 정수 stackId 로 바꿔준다.
+ * 경로는 (부모 stackId, signatureId) 쌍으로 저장되므로, 깊이와 상관없이 한 칸이면 된다.
+ * 내보낼 때는 parent(stackId) 를 따라 올라가면서 전체 경로를 복원한다. (ROOT 에서 멈춘다)
+ */
+public final class CallPathRegistry {
+
+    public static final int ROOT = -1;
+
+    private static final CallPathRegistry INSTANCE = new CallPathRegistry();
+
+    private final Map<Long, Integer> ids = new ConcurrentHashMap<>();
+    private volatile int[] parents = new int[64];
+    private volatile int[] signatures = new int[64];
+    private int size;
+
+    public static CallPathRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public int id(int parentStackId, int signatureId) {
+        Long key = ((long) parentStackId << 32) | (signatureId & 0xFFFFFFFFL);
+        Integer id = ids.get(key);
+        return id != null ? id : register(key, parentStackId, signatureId);
+    }
+
+    public int parent(int stackId) {
+        return parents[stackId];
+    }
+
+    public int signature(int stackId) {
+        return signatures[stackId];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int register(Long key, int parentStackId, int signatureId) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        if (size == parents.length) {
+            parents = Arrays.copyOf(parents, size * 2);
+            signatures = Arrays.copyOf(signatures, size * 2);
+        }
+        parents[size] = parentStackId;
+        signatures[size] = signatureId;
+        ids.put(key, size);
+        return size++;
+    }
+}
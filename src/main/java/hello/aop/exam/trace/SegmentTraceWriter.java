@@ -0,0 +1,140 @@
+package hello.aop.exam.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 고정 길이 바이너리 레코드를 메모리 매핑된 세그먼트 파일에 이어 쓴다.
+ *  - 실행(run)마다 {run}.dict 사전 파일 하나와 {run}-000001.seg, {run}-000002.seg ... 세그먼트 파일이 생긴다.
+ *  - 레코드에는 시그니처/호출 경로 대신 정수 id 만 담고, 처음 보는 id 는 레코드보다 먼저 사전에 적는다.
+ *  - 세그먼트가 가득 차면 다음 세그먼트로 넘어가고, maxSegments 개를 넘으면 가장 오래된 것부터 지운다.
+ *  - 헤더의 레코드 수는 배치마다(flush) 갱신하므로 쓰는 도중에도 TraceLogReader 로 읽을 수 있다.
+ *
+ * 세그먼트 헤더 (HEADER_SIZE 바이트): magic, version, recordSize, (예약), 레코드 수(long, COUNT_OFFSET)
+ * 레코드 (RECORD_SIZE 바이트): traceId, spanId, parentId, 시작(epoch ns), 걸린 시간, self 시간, threadId (각 long)
+ *                            + signatureId, stackId, flags(예외 여부), depth (각 int)
+ */
+public class SegmentTraceWriter implements TraceRecordWriter {
+
+    static final int MAGIC = 0x54524331; // "TRC1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int COUNT_OFFSET = 16;
+    static final int RECORD_SIZE = 72;
+    static final int FLAG_FAILED = 1;
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String DICTIONARY_SUFFIX = ".dict";
+    static final byte SIGNATURE_ENTRY = 1;
+    static final byte PATH_ENTRY = 2;
+
+    private final SignatureRegistry signatures = SignatureRegistry.getInstance();
+    private final CallPathRegistry paths = CallPathRegistry.getInstance();
+    private final Path dir;
+    private final String run;
+    private final long segmentRecords;
+    private final int maxSegments;
+    private final Deque<Path> segments = new ArrayDeque<>();
+    private final DataOutputStream dictionary;
+
+    private MappedByteBuffer segment;
+    private long count;
+    private int index;
+    private int signaturesWritten;
+    private int pathsWritten;
+
+    public SegmentTraceWriter(Path dir, long segmentSize, int maxSegments) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.run = Long.toString(System.currentTimeMillis());
+        this.segmentRecords = Math.max(1, (Math.min(segmentSize, Integer.MAX_VALUE) - HEADER_SIZE) / RECORD_SIZE);
+        this.maxSegments = Math.max(1, maxSegments);
+        this.dictionary = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                dir.resolve(run + DICTIONARY_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        roll();
+    }
+
+    public String run() {
+        return run;
+    }
+
+    @Override
+    public void write(TraceRecord record) throws IOException {
+        writeDictionary(record.signatureId, record.stackId);
+        if (count == segmentRecords) {
+            roll();
+        }
+        int position = (int) (HEADER_SIZE + count * RECORD_SIZE);
+        segment.putLong(position, record.traceId);
+        segment.putLong(position + 8, record.spanId);
+        segment.putLong(position + 16, record.parentId);
+        segment.putLong(position + 24, TraceClock.toEpochNanos(record.timestampNanos));
+        segment.putLong(position + 32, record.durationNanos);
+        segment.putLong(position + 40, record.selfNanos);
+        segment.putLong(position + 48, record.threadId);
+        segment.putInt(position + 56, record.signatureId);
+        segment.putInt(position + 60, record.stackId);
+        segment.putInt(position + 64, record.failed ? FLAG_FAILED : 0);
+        segment.putInt(position + 68, record.depth);
+        count++;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        dictionary.flush(); // 사전을 먼저 내보내야 읽는 쪽이 모르는 id 를 만나지 않는다.
+        segment.putLong(COUNT_OFFSET, count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        segment.force();
+        dictionary.close();
+    }
+
+    private void writeDictionary(int signatureId, int stackId) throws IOException {
+        while (signaturesWritten <= signatureId) {
+            dictionary.writeByte(SIGNATURE_ENTRY);
+            dictionary.writeInt(signaturesWritten);
+            dictionary.writeUTF(signatures.name(signaturesWritten));
+            signaturesWritten++;
+        }
+        while (pathsWritten <= stackId) {
+            dictionary.writeByte(PATH_ENTRY);
+            dictionary.writeInt(pathsWritten);
+            dictionary.writeInt(paths.parent(pathsWritten));
+            dictionary.writeInt(paths.signature(pathsWritten));
+            pathsWritten++;
+        }
+    }
+
+    private void roll() throws IOException {
+        if (segment != null) {
+            segment.putLong(COUNT_OFFSET, count);
+            segment.force();
+        }
+        index++;
+        Path path = dir.resolve(String.format("%s-%06d%s", run, index, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 매핑은 채널을 닫아도 유지된다.
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + segmentRecords * RECORD_SIZE);
+        }
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+        segment.putInt(8, RECORD_SIZE);
+        segment.putLong(COUNT_OFFSET, 0);
+        count = 0;
+
+        segments.addLast(path);
+        while (segments.size() > maxSegments) {
+            Files.deleteIfExists(segments.pollFirst());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package hello.aop.exam.trace;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 메서드 시그니처를 작은 정수 id 로 바꿔준다.
+ * 기록에는 문자열 대신 id 만 담고, 사람이 읽을 이름은 기록을 내보낼 때 name(id) 로 찾는다.
+ * 처음 보는 메서드를 등록할 때만 잠그고, 이미 등록된 메서드는 ConcurrentHashMap 조회 한 번으로 끝난다.
+ * 등록할 때 인수 렌더러(ArgsRenderer)도 한 번 만들어 두고 renderer(id) 로 꺼내 쓴다.
+ * TraceAspect 는 빈이 프록시될 때 @Trace 메서드를 미리 등록하므로, 호출 중에는 조회만 일어난다.
+ */
+public final class SignatureRegistry {
+
+    private static final SignatureRegistry INSTANCE = new SignatureRegistry();
+
+    private final Map<Method, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private volatile ArgsRenderer[] renderers = new ArgsRenderer[64];
+    private int size;
+
+    public static SignatureRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public int id(Method method) {
+        Integer id = ids.get(method);
+        return id != null ? id : register(method);
+    }
+
+    public String name(int id) {
+        String[] current = names;
+        return id >= 0 && id < current.length && current[id] != null ? current[id] : "#" + id;
+    }
+
+    public ArgsRenderer renderer(int id) {
+        return renderers[id];
+    }
+
+    public int size() {
+        synchronized (this) {
+            return size;
+        }
+    }
+
+    private synchronized int register(Method method) {
+        Integer id = ids.get(method);
+        if (id != null) {
+            return id;
+        }
+        String[] currentNames = names;
+        ArgsRenderer[] currentRenderers = renderers;
+        if (size == currentNames.length) {
+            currentNames = Arrays.copyOf(currentNames, size * 2);
+            currentRenderers = Arrays.copyOf(currentRenderers, size * 2);
+        }
+        currentNames[size] = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        currentRenderers[size] = ArgsRenderer.of(method);
+        names = currentNames; // 이름과 렌더러를 먼저 공개하고 id 를 등록한다
+        renderers = currentRenderers;
+        ids.put(method, size);
+        return size++;
+    }
+}
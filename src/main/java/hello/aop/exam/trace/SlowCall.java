@@ -0,0 +1,46 @@
+package hello.aop.exam.trace;
+
+/**
+ * 느린 호출 하나 (만든 뒤에는 바뀌지 않는다)
+ */
+public final class SlowCall {
+
+    private final String signature;
+    private final long durationNanos;
+    private final long timestampMillis;
+    private final String args;
+    private final boolean failed;
+
+    public SlowCall(String signature, long durationNanos, long timestampMillis, String args, boolean failed) {
+        this.signature = signature;
+        this.durationNanos = durationNanos;
+        this.timestampMillis = timestampMillis;
+        this.args = args;
+        this.failed = failed;
+    }
+
+    public String signature() {
+        return signature;
+    }
+
+    public long durationNanos() {
+        return durationNanos;
+    }
+
+    public long timestampMillis() {
+        return timestampMillis;
+    }
+
+    public String args() {
+        return args;
+    }
+
+    public boolean failed() {
+        return failed;
+    }
+
+    @Override
+    public String toString() {
+        return signature + " " + durationNanos / 1000 + "us args=" + args + (failed ? " ERROR" : "");
+    }
+}
@@ -0,0 +1,72 @@
+package hello.aop.exam.trace;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 시그니처 하나의 "최근 가장 느린 호출 N개"
+ *  - 칸 N개짜리 AtomicReferenceArray. 새 호출은 빈 칸, 오래된(maxAgeMillis 를 넘긴) 칸, 가장 빠른 칸 순으로 자리를 찾고
+ *    그 칸을 CAS 로 바꾼다. CAS 에 지면 다시 찾는다. (락 없음)
+ *  - 칸이 모두 최근 호출이고 새 호출이 그중 가장 빠른 것보다도 빠르면 넣지 않는다.
+ *  - offer() 는 이미 느린 호출에서만 불리므로 N 칸을 훑는 비용은 문제가 되지 않는다.
+ */
+public final class SlowCallTopN {
+
+    private final AtomicReferenceArray<SlowCall> slots;
+    private final long maxAgeMillis;
+
+    public SlowCallTopN(int size, long maxAgeMillis) {
+        this.slots = new AtomicReferenceArray<>(Math.max(1, size));
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * @return 들어갔으면 true
+     */
+    public boolean offer(SlowCall call) {
+        long expiredBefore = call.timestampMillis() - maxAgeMillis;
+        while (true) {
+            int victim = -1;
+            SlowCall victimCall = null;
+            for (int i = 0; i < slots.length(); i++) {
+                SlowCall current = slots.get(i);
+                if (current == null || current.timestampMillis() < expiredBefore) {
+                    victim = i;
+                    victimCall = current;
+                    break;
+                }
+                if (victimCall == null || current.durationNanos() < victimCall.durationNanos()) {
+                    victim = i;
+                    victimCall = current;
+                }
+            }
+            boolean replaceable = victimCall == null
+                    || victimCall.timestampMillis() < expiredBefore
+                    || victimCall.durationNanos() < call.durationNanos();
+            if (!replaceable) {
+                return false;
+            }
+            if (slots.compareAndSet(victim, victimCall, call)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 지금 들고 있는 호출들을 느린 순으로 (오래된 것은 뺀다)
+     */
+    public List<SlowCall> snapshot() {
+        long expiredBefore = System.currentTimeMillis() - maxAgeMillis;
+        List<SlowCall> calls = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            SlowCall call = slots.get(i);
+            if (call != null && call.timestampMillis() >= expiredBefore) {
+                calls.add(call);
+            }
+        }
+        calls.sort(Comparator.comparingLong(SlowCall::durationNanos).reversed());
+        return calls;
+    }
+}
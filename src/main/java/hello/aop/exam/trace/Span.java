@@ -0,0 +1,112 @@
+package hello.aop.exam.trace;
+
+/**
+ * @Trace 호출 하나 (스팬)
+ *  - traceId 는 최상위 스팬의 id, parentId 는 바로 바깥 스팬의 id (최상위면 0)
+ *  - stackId 는 최상위부터 이 스팬까지의 호출 경로를 CallPathRegistry 에 등록한 번호 (플레임 그래프용)
+ *  - childNanos 는 같은 스레드에서 실행된 자식 스팬들의 시간 합. selfNanos = 전체 - 자식
+ *  - sampled 는 이 스팬을 남길지 여부. 최상위 스팬에서 한 번 정하고 자식은 시작할 때 부모 것을 물려받는다. (TraceContext.start)
+ *    예외가 났거나 느린 스팬은 끝날 때 자기와 실행 중인 조상을 모두 sampled 로 올린다. (TraceContext.end)
+ *  - 부모 참조는 실행 중에만 쓰고 끝나면 끊는다. (부모 스팬은 TraceContext.release 로 재사용될 수 있으므로 id 는 시작할 때 복사해 둔다)
+ */
+public final class Span {
+
+    Span parent;
+    long traceId;
+    long spanId;
+    long parentId;
+    int signatureId;
+    int stackId;
+    int depth;
+    long threadId;
+    long startNanos;
+    long endNanos;
+    long childNanos;
+    boolean failed;
+    boolean sampled;
+
+    // 다른 스레드로 넘어갔거나(TraceContext.current) 해서 스팬 풀에 돌려주면 안 되는 스팬
+    boolean pinned;
+    // 스팬 풀(스레드별 빈 스팬 목록)에서 다음 스팬
+    Span nextFree;
+
+    // 같은 자식 시그니처가 반복해서 불리는 경우가 대부분이라 마지막 경로 조회 결과를 기억해 둔다.
+    int lastChildSignature = -1;
+    int lastChildStack;
+
+    Span(Span parent, long spanId, int signatureId, int stackId, long threadId, long startNanos) {
+        init(parent, spanId, signatureId, stackId, threadId, startNanos);
+    }
+
+    void init(Span parent, long spanId, int signatureId, int stackId, long threadId, long startNanos) {
+        this.parent = parent;
+        this.traceId = parent == null ? spanId : parent.traceId;
+        this.spanId = spanId;
+        this.parentId = parent == null ? 0 : parent.spanId;
+        this.signatureId = signatureId;
+        this.stackId = stackId;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+        this.threadId = threadId;
+        this.startNanos = startNanos;
+        this.endNanos = 0;
+        this.childNanos = 0;
+        this.failed = false;
+        this.sampled = parent != null && parent.sampled;
+        this.pinned = false;
+        this.nextFree = null;
+        this.lastChildSignature = -1;
+        this.lastChildStack = 0;
+    }
+
+    public long traceId() {
+        return traceId;
+    }
+
+    public long spanId() {
+        return spanId;
+    }
+
+    public long parentId() {
+        return parentId;
+    }
+
+    public int signatureId() {
+        return signatureId;
+    }
+
+    public int stackId() {
+        return stackId;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long threadId() {
+        return threadId;
+    }
+
+    public long startNanos() {
+        return startNanos;
+    }
+
+    public long endNanos() {
+        return endNanos;
+    }
+
+    public long durationNanos() {
+        return endNanos - startNanos;
+    }
+
+    public long selfNanos() {
+        return durationNanos() - childNanos;
+    }
+
+    public boolean failed() {
+        return failed;
+    }
+
+    public boolean sampled() {
+        return sampled;
+    }
+}
@@ -0,0 +1,50 @@
+package hello.aop.exam.trace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * 기록 하나를 한 줄 텍스트로 쓴다.
+ * 예) 2026-10-16T11:20:01.123456789Z [main#1] 11:12<11 ExamRepository.save args=[data] 117us self=117us
+ */
+public class TextTraceWriter implements TraceRecordWriter {
+
+    private final SignatureRegistry registry = SignatureRegistry.getInstance();
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder(128);
+
+    public TextTraceWriter(Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void write(TraceRecord record) throws IOException {
+        line.setLength(0);
+        line.append(Instant.ofEpochSecond(0, TraceClock.toEpochNanos(record.timestampNanos)))
+                .append(" [").append(record.threadName).append('#').append(record.threadId).append("] ")
+                .append(record.traceId).append(':').append(record.spanId).append('<').append(record.parentId).append(' ')
+                .append(registry.name(record.signatureId))
+                .append(" args=[").append(record.args.chars(), 0, record.args.length()).append("] ")
+                .append(record.durationNanos / 1000).append("us self=")
+                .append(record.selfNanos / 1000).append("us")
+                .append(record.failed ? " ERROR" : "")
+                .append(System.lineSeparator());
+        writer.append(line);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
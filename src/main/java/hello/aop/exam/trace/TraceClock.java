@@ -0,0 +1,18 @@
+package hello.aop.exam.trace;
+
+/**
+ * 스팬 시각은 System.nanoTime() 으로 재고, 기록을 내보낼 때 벽시계(epoch) 나노초로 바꾼다.
+ * 기준점은 클래스가 처음 쓰일 때 한 번만 잡는다. (프로세스 안에서는 모든 기록이 같은 기준을 쓴다)
+ */
+public final class TraceClock {
+
+    private static final long EPOCH_NANOS = System.currentTimeMillis() * 1_000_000L;
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    private TraceClock() {
+    }
+
+    public static long toEpochNanos(long nanoTime) {
+        return EPOCH_NANOS + (nanoTime - ORIGIN_NANOS);
+    }
+}
@@ -0,0 +1,158 @@
+package hello.aop.exam.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 스레드마다 현재 스팬을 들고 있는 스택
+ *  - 스택은 Span.parent 로 이어진 연결 리스트라서, 현재 스팬 참조 하나가 곧 스택 전체다.
+ *  - ThreadLocal 조회는 start/end 에서 한 번씩만 한다. (Holder 안에 현재 스팬과 id 블록을 같이 둔다)
+ *  - 스팬 id 는 전역 AtomicLong 에서 ID_BLOCK 개씩 받아 스레드 안에서 나눠 쓴다. (호출마다 CAS 하지 않도록)
+ *  - 남기지 않기로 한 스팬은 release() 로 스레드별 풀에 돌려주고 다음 start() 에서 다시 쓴다. (샘플링에서 빠진 호출은 할당 없음)
+ *    current() 로 꺼내 간 스팬은 다른 스레드에서 부모로 쓰일 수 있으므로 (조상까지) 풀에 돌려주지 않는다.
+ *  - 남길지(sampled)는 트레이스마다 최상위 스팬에서 한 번 정하고 자식은 그대로 물려받는다. 그래서 트레이스는 통째로 남거나 통째로 빠진다.
+ *    예외/느린 호출로 올린(keep) 스팬은 실행 중인 조상까지 함께 올리므로, 남긴 스팬의 부모는 항상 함께 남는다.
+ *    단, 다른 스레드로 넘어간 자식이 부모가 이미 끝난 뒤에 올라가면 부모는 되돌릴 수 없다. (예외 기록은 잃지 않는 쪽을 택한다)
+ */
+public final class TraceContext {
+
+    private static final long ID_BLOCK = 4096;
+    private static final AtomicLong NEXT_BLOCK = new AtomicLong(1);
+    private static final ThreadLocal<Holder> HOLDER = ThreadLocal.withInitial(Holder::new);
+
+    private TraceContext() {
+    }
+
+    public static Span current() {
+        Span current = HOLDER.get().current;
+        for (Span span = current; span != null && !span.pinned; span = span.parent) {
+            span.pinned = true;
+        }
+        return current;
+    }
+
+    /**
+     * 현재 스팬의 자식 스팬을 시작하고 현재 스팬으로 만든다. 최상위 스팬이면 항상 남긴다.
+     */
+    public static Span start(int signatureId, long startNanos) {
+        return start(signatureId, startNanos, null);
+    }
+
+    /**
+     * 현재 스팬의 자식 스팬을 시작하고 현재 스팬으로 만든다.
+     * 최상위 스팬이면 sampler 로 이 트레이스를 남길지 정하고(null 이면 남긴다), 자식이면 부모의 결정을 따른다. (sampler 는 부르지 않는다)
+     */
+    public static Span start(int signatureId, long startNanos, TraceSampler sampler) {
+        Holder holder = HOLDER.get();
+        Span parent = holder.current;
+        long spanId = holder.nextId();
+        int stackId = parent == null ? holder.rootStack(signatureId) : stackId(parent, signatureId, holder.threadId);
+        Span span = holder.free;
+        if (span == null) {
+            span = new Span(parent, spanId, signatureId, stackId, holder.threadId, startNanos);
+        } else {
+            holder.free = span.nextFree;
+            span.init(parent, spanId, signatureId, stackId, holder.threadId, startNanos);
+        }
+        if (parent == null) {
+            span.sampled = sampler == null || sampler.sample(startNanos);
+        }
+        holder.current = span;
+        return span;
+    }
+
+    /**
+     * 스팬을 끝내고 부모 스팬을 다시 현재 스팬으로 돌려놓는다. 예외로 끝난 스팬은 남긴다. (end(span, endNanos, failed, failed))
+     */
+    public static void end(Span span, long endNanos, boolean failed) {
+        end(span, endNanos, failed, failed);
+    }
+
+    /**
+     * 스팬을 끝내고 부모 스팬을 다시 현재 스팬으로 돌려놓는다.
+     * 부모가 같은 스레드에서 실행 중이면 자식 시간을 부모의 childNanos 에 더한다.
+     * @param keep true 면 샘플링에서 빠진 트레이스여도 이 스팬과 아직 실행 중인 조상을 모두 남기도록 올린다. (예외, 느린 호출)
+     */
+    public static void end(Span span, long endNanos, boolean failed, boolean keep) {
+        span.endNanos = endNanos;
+        span.failed = failed;
+        if (keep) {
+            for (Span s = span; s != null && !s.sampled; s = s.parent) {
+                s.sampled = true;
+            }
+        }
+        Holder holder = HOLDER.get();
+        Span parent = span.parent;
+        if (parent != null && parent.threadId == holder.threadId) {
+            parent.childNanos += span.durationNanos();
+        }
+        holder.current = parent;
+        span.parent = null;
+    }
+
+    /**
+     * 끝난 스팬을 이 스레드의 풀에 돌려준다. 돌려준 뒤에는 스팬을 읽으면 안 된다.
+     * TraceSink 에 넘긴 스팬은 sink 가 들고 있을 수 있으므로 돌려주지 않는다.
+     */
+    public static void release(Span span) {
+        Holder holder = HOLDER.get();
+        if (span.pinned || span.threadId != holder.threadId) {
+            return;
+        }
+        span.nextFree = holder.free;
+        holder.free = span;
+    }
+
+    /**
+     * 다른 스레드에서 잡아 둔 스팬을 이 스레드의 현재 스팬으로 만든다. (TraceExecutors 에서 사용)
+     * @return 원래 현재 스팬. 작업이 끝나면 restore() 로 돌려놓아야 한다.
+     */
+    public static Span attach(Span span) {
+        Holder holder = HOLDER.get();
+        Span previous = holder.current;
+        holder.current = span;
+        return previous;
+    }
+
+    public static void restore(Span previous) {
+        HOLDER.get().current = previous;
+    }
+
+    private static int stackId(Span parent, int signatureId, long threadId) {
+        if (parent.threadId != threadId) {
+            return CallPathRegistry.getInstance().id(parent.stackId, signatureId); // 다른 스레드의 부모 캐시는 건드리지 않는다
+        }
+        if (parent.lastChildSignature != signatureId) {
+            parent.lastChildStack = CallPathRegistry.getInstance().id(parent.stackId, signatureId);
+            parent.lastChildSignature = signatureId;
+        }
+        return parent.lastChildStack;
+    }
+
+    private static final class Holder {
+
+        final long threadId = Thread.currentThread().getId();
+        Span current;
+        long nextId;
+        long idLimit;
+        Span free;
+        // 최상위 호출도 같은 시그니처가 반복되므로 마지막 경로 조회 결과를 기억해 둔다. (조회 키 박싱을 피한다)
+        int rootSignature = -1;
+        int rootStack;
+
+        int rootStack(int signatureId) {
+            if (rootSignature != signatureId) {
+                rootStack = CallPathRegistry.getInstance().id(CallPathRegistry.ROOT, signatureId);
+                rootSignature = signatureId;
+            }
+            return rootStack;
+        }
+
+        long nextId() {
+            if (nextId == idLimit) {
+                nextId = NEXT_BLOCK.getAndAdd(ID_BLOCK);
+                idLimit = nextId + ID_BLOCK;
+            }
+            return nextId++;
+        }
+    }
+}
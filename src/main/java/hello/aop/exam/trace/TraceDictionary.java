@@ -0,0 +1,83 @@
+package hello.aop.exam.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * SegmentTraceWriter 가 남긴 사전 파일({run}.dict)을 읽어서 id 를 이름과 호출 경로로 되돌린다.
+ */
+public final class TraceDictionary {
+
+    private String[] names = new String[64];
+    private int[] parents = new int[64];
+    private int[] signatures = new int[64];
+
+    public static TraceDictionary read(Path file) throws IOException {
+        TraceDictionary dictionary = new TraceDictionary();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                byte kind;
+                try {
+                    kind = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                int id = in.readInt();
+                if (kind == SegmentTraceWriter.SIGNATURE_ENTRY) {
+                    dictionary.putName(id, in.readUTF());
+                } else if (kind == SegmentTraceWriter.PATH_ENTRY) {
+                    dictionary.putPath(id, in.readInt(), in.readInt());
+                } else {
+                    throw new IOException("Unknown dictionary entry: " + kind);
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    public String name(int signatureId) {
+        String name = signatureId < names.length ? names[signatureId] : null;
+        return name != null ? name : "#" + signatureId;
+    }
+
+    public int parent(int stackId) {
+        return parents[stackId];
+    }
+
+    public int signature(int stackId) {
+        return signatures[stackId];
+    }
+
+    /**
+     * 최상위부터 stackId 까지의 경로를 separator 로 이어서 append 한다. (예: ExamService.request;ExamRepository.save)
+     */
+    public StringBuilder appendPath(StringBuilder target, int stackId, char separator) {
+        int parent = parents[stackId];
+        if (parent != CallPathRegistry.ROOT) {
+            appendPath(target, parent, separator).append(separator);
+        }
+        return target.append(name(signatures[stackId]));
+    }
+
+    private void putName(int id, String name) {
+        if (id >= names.length) {
+            names = Arrays.copyOf(names, Math.max(id + 1, names.length * 2));
+        }
+        names[id] = name;
+    }
+
+    private void putPath(int id, int parent, int signature) {
+        if (id >= parents.length) {
+            int length = Math.max(id + 1, parents.length * 2);
+            parents = Arrays.copyOf(parents, length);
+            signatures = Arrays.copyOf(signatures, length);
+        }
+        parents[id] = parent;
+        signatures[id] = signature;
+    }
+}
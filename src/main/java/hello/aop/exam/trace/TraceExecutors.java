@@ -0,0 +1,224 @@
+package hello.aop.exam.trace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 작업이 다른 스레드로 넘어가도 트레이스 컨텍스트(현재 스팬)가 따라가게 하는 데코레이터
+ *  - 캡처는 현재 Span 참조 하나뿐이다. (Span.parent 로 이어진 스택 전체가 따라간다, 맵 복사 없음)
+ *  - 실행 스레드에서는 attach -> 작업 -> restore. 자식 스팬의 부모는 캡처한 스팬이 된다.
+ *  - 캡처할 스팬이 없으면 작업을 감싸지 않고 그대로 넘긴다. (트레이스 밖의 작업은 추가 비용 없음)
+ *
+ * 캡처 시점
+ *  - wrap(Executor), wrap(ExecutorService): execute/submit 을 부른 스레드의 컨텍스트
+ *  - bind(Executor): bind 를 부른 시점의 컨텍스트
+ *    CompletableFuture 의 thenApplyAsync 같은 단계는 앞 단계를 끝낸 (다른) 스레드가 execute 를 부르므로,
+ *    체인을 만드는 스레드에서 bind 한 Executor 를 넘겨야 한다.
+ */
+public final class TraceExecutors {
+
+    private static final Executor COMMON_POOL = wrap((Executor) ForkJoinPool.commonPool());
+
+    private TraceExecutors() {
+    }
+
+    public static Executor wrap(Executor executor) {
+        return new TracedExecutor(executor);
+    }
+
+    public static ExecutorService wrap(ExecutorService executor) {
+        return new TracedExecutorService(executor);
+    }
+
+    public static Executor bind(Executor executor) {
+        Span span = TraceContext.current();
+        return span == null ? executor : new BoundExecutor(executor, span);
+    }
+
+    // CompletableFuture.xxxAsync(..) 의 기본 실행기(ForkJoinPool.commonPool)를 감싼 것
+    public static Executor commonPool() {
+        return COMMON_POOL;
+    }
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, COMMON_POOL);
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Span span = TraceContext.current();
+        return span == null ? task : new TracedRunnable(task, span);
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Span span = TraceContext.current();
+        return span == null ? task : new TracedCallable<>(task, span);
+    }
+
+    private static <T> List<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
+        Span span = TraceContext.current();
+        List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            wrapped.add(span == null ? task : new TracedCallable<>(task, span));
+        }
+        return wrapped;
+    }
+
+    private static final class TracedRunnable implements Runnable {
+
+        private final Runnable delegate;
+        private final Span span;
+
+        TracedRunnable(Runnable delegate, Span span) {
+            this.delegate = delegate;
+            this.span = span;
+        }
+
+        @Override
+        public void run() {
+            Span previous = TraceContext.attach(span);
+            try {
+                delegate.run();
+            } finally {
+                TraceContext.restore(previous);
+            }
+        }
+    }
+
+    private static final class TracedCallable<T> implements Callable<T> {
+
+        private final Callable<T> delegate;
+        private final Span span;
+
+        TracedCallable(Callable<T> delegate, Span span) {
+            this.delegate = delegate;
+            this.span = span;
+        }
+
+        @Override
+        public T call() throws Exception {
+            Span previous = TraceContext.attach(span);
+            try {
+                return delegate.call();
+            } finally {
+                TraceContext.restore(previous);
+            }
+        }
+    }
+
+    private static final class TracedExecutor implements Executor {
+
+        private final Executor delegate;
+
+        TracedExecutor(Executor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(wrap(command));
+        }
+    }
+
+    private static final class BoundExecutor implements Executor {
+
+        private final Executor delegate;
+        private final Span span;
+
+        BoundExecutor(Executor delegate, Span span) {
+            this.delegate = delegate;
+            this.span = span;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(new TracedRunnable(command, span));
+        }
+    }
+
+    private static final class TracedExecutorService implements ExecutorService {
+
+        private final ExecutorService delegate;
+
+        TracedExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(wrap(command));
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            return delegate.submit(wrap(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Runnable task, T result) {
+            return delegate.submit(wrap(task), result);
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            return delegate.submit(wrap(task));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+            return delegate.invokeAny(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.invokeAny(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package hello.aop.exam.trace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SegmentTraceWriter 로 남긴 기록을 다른 도구가 읽는 형식으로 내보낸다.
+ *  - collapsed: 플레임 그래프용 접힌 스택 ("ExamService.request;ExamRepository.save 1234", 값은 self 시간 us)
+ *    레코드를 흘려 읽으면서 stackId 별 self 시간만 더하므로, 메모리는 기록 수가 아니라 서로 다른 호출 경로 수만큼 쓴다.
+ *  - chrome: Chrome trace-event JSON (chrome://tracing, Perfetto 에서 열 수 있다)
+ *    레코드 하나를 읽을 때마다 완료 이벤트("ph":"X") 하나를 바로 써서, 캡처 크기와 상관없이 힙에 쌓아 두지 않는다.
+ *
+ * 명령행 사용법 (./gradlew traceExport --args='...')
+ *  TraceExporter <dir> collapsed|chrome <output> [--run id]
+ */
+public final class TraceExporter {
+
+    private TraceExporter() {
+    }
+
+    public static void writeCollapsed(TraceLogReader reader, String run, Writer out) throws IOException {
+        TraceDictionary dictionary = reader.dictionary(run);
+        Map<Integer, long[]> selfNanos = new HashMap<>();
+        reader.read(run, record -> selfNanos.computeIfAbsent(record.stackId, id -> new long[1])[0] += record.selfNanos);
+
+        StringBuilder line = new StringBuilder(128);
+        for (Map.Entry<Integer, long[]> entry : selfNanos.entrySet()) {
+            long micros = entry.getValue()[0] / 1000;
+            if (micros <= 0) {
+                continue;
+            }
+            line.setLength(0);
+            dictionary.appendPath(line, entry.getKey(), ';').append(' ').append(micros).append('\n');
+            out.append(line);
+        }
+        out.flush();
+    }
+
+    public static void writeChromeTrace(TraceLogReader reader, String run, Writer out) throws IOException {
+        TraceDictionary dictionary = reader.dictionary(run);
+        StringBuilder event = new StringBuilder(256);
+        boolean[] first = {true};
+
+        out.append("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[\n");
+        try {
+            reader.read(run, record -> {
+                event.setLength(0);
+                if (!first[0]) {
+                    event.append(",\n");
+                }
+                first[0] = false;
+                event.append("{\"name\":");
+                appendJsonString(event, dictionary.name(record.signatureId));
+                event.append(",\"cat\":\"trace\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(record.threadId)
+                        .append(",\"ts\":");
+                appendMicros(event, record.timestampNanos);
+                event.append(",\"dur\":");
+                appendMicros(event, record.durationNanos);
+                event.append(",\"args\":{\"trace\":").append(record.traceId)
+                        .append(",\"span\":").append(record.spanId)
+                        .append(",\"parent\":").append(record.parentId)
+                        .append(",\"selfUs\":").append(record.selfNanos / 1000)
+                        .append(",\"error\":").append(record.failed)
+                        .append("}}");
+                try {
+                    out.append(event);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.append("\n]}\n");
+        out.flush();
+    }
+
+    // trace-event 의 시각 단위는 마이크로초 (소수점 3자리까지 써서 나노초를 보존한다)
+    private static void appendMicros(StringBuilder target, long nanos) {
+        target.append(nanos / 1000).append('.');
+        long fraction = Math.abs(nanos % 1000);
+        if (fraction < 100) {
+            target.append('0');
+        }
+        if (fraction < 10) {
+            target.append('0');
+        }
+        target.append(fraction);
+    }
+
+    private static void appendJsonString(StringBuilder target, String value) {
+        target.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                target.append('\\').append(c);
+            } else if (c < 0x20) {
+                target.append(String.format("\\u%04x", (int) c));
+            } else {
+                target.append(c);
+            }
+        }
+        target.append('"');
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: TraceExporter <dir> collapsed|chrome <output> [--run id]");
+            System.exit(1);
+        }
+        TraceLogReader reader = new TraceLogReader(Paths.get(args[0]));
+        String run = args.length > 4 && "--run".equals(args[3]) ? args[4] : reader.latestRun();
+        Path output = Paths.get(args[2]);
+
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            if ("chrome".equals(args[1])) {
+                writeChromeTrace(reader, run, out);
+            } else {
+                writeCollapsed(reader, run, out);
+            }
+        }
+        System.out.println("exported " + run + " to " + output.toAbsolutePath());
+    }
+}
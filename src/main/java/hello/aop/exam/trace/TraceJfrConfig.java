@@ -0,0 +1,16 @@
+package hello.aop.exam.trace;
+
+import hello.aop.exam.aop.JfrAspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * trace.jfr.enabled=true 이면 JfrAspect 를 등록한다.
+ * 실제 이벤트 기록 여부는 JFR 설정(-XX:StartFlightRecording, jcmd JFR.start)이 정한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "trace.jfr.enabled", havingValue = "true")
+@Import(JfrAspect.class)
+public class TraceJfrConfig {
+}
@@ -0,0 +1,233 @@
+package hello.aop.exam.trace;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * SegmentTraceWriter 가 남긴 바이너리 트레이스 로그를 읽는다.
+ *  - 세그먼트를 하나씩 읽기 전용으로 매핑해서 레코드를 차례대로 넘겨준다. (전체를 힙에 올리지 않는다)
+ *  - 넘겨주는 TraceRecord 는 하나를 재사용한다. timestampNanos 는 epoch 기준 나노초, 인수 요약과 스레드 이름은 없다.
+ *
+ * 명령행 사용법 (./gradlew traceReader --args='...')
+ *  TraceLogReader <dir> [decode|aggregate] [--run id] [--signature text] [--trace id] [--min-us n] [--errors]
+ *  - decode: 레코드를 한 줄씩 출력 (기본)
+ *  - aggregate: 시그니처별 호출 수, 예외 수, 합계/평균/최대 시간, self 시간 합계를 합계 시간 순으로 출력
+ */
+public final class TraceLogReader {
+
+    private final Path dir;
+
+    public TraceLogReader(Path dir) {
+        this.dir = dir;
+    }
+
+    public interface Visitor {
+        void visit(TraceRecord record);
+    }
+
+    /**
+     * 디렉토리에 남아 있는 실행(run) id 목록 (오래된 순)
+     */
+    public List<String> runs() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SegmentTraceWriter.DICTIONARY_SUFFIX))
+                    .map(name -> name.substring(0, name.length() - SegmentTraceWriter.DICTIONARY_SUFFIX.length()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public String latestRun() throws IOException {
+        List<String> runs = runs();
+        if (runs.isEmpty()) {
+            throw new IOException("No trace run in " + dir);
+        }
+        return runs.get(runs.size() - 1);
+    }
+
+    public TraceDictionary dictionary(String run) throws IOException {
+        return TraceDictionary.read(dir.resolve(run + SegmentTraceWriter.DICTIONARY_SUFFIX));
+    }
+
+    /**
+     * @return 읽은 레코드 수
+     */
+    public long read(String run, Visitor visitor) throws IOException {
+        TraceRecord record = new TraceRecord();
+        long total = 0;
+        for (Path segment : segments(run)) {
+            total += readSegment(segment, record, visitor);
+        }
+        return total;
+    }
+
+    private List<Path> segments(String run) throws IOException {
+        String prefix = run + "-";
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(SegmentTraceWriter.SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private long readSegment(Path path, TraceRecord record, Visitor visitor) throws IOException {
+        MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (segment.getInt(0) != SegmentTraceWriter.MAGIC || segment.getInt(4) != SegmentTraceWriter.VERSION) {
+            throw new IOException("Not a trace segment: " + path);
+        }
+        int recordSize = segment.getInt(8);
+        long count = segment.getLong(SegmentTraceWriter.COUNT_OFFSET);
+        for (long i = 0; i < count; i++) {
+            int position = (int) (SegmentTraceWriter.HEADER_SIZE + i * recordSize);
+            record.traceId = segment.getLong(position);
+            record.spanId = segment.getLong(position + 8);
+            record.parentId = segment.getLong(position + 16);
+            record.timestampNanos = segment.getLong(position + 24);
+            record.durationNanos = segment.getLong(position + 32);
+            record.selfNanos = segment.getLong(position + 40);
+            record.threadId = segment.getLong(position + 48);
+            record.signatureId = segment.getInt(position + 56);
+            record.stackId = segment.getInt(position + 60);
+            record.failed = (segment.getInt(position + 64) & SegmentTraceWriter.FLAG_FAILED) != 0;
+            record.depth = segment.getInt(position + 68);
+            visitor.visit(record);
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: TraceLogReader <dir> [decode|aggregate] [--run id] [--signature text]"
+                    + " [--trace id] [--min-us n] [--errors]");
+            System.exit(1);
+        }
+        TraceLogReader reader = new TraceLogReader(Paths.get(args[0]));
+        String command = "decode";
+        String run = null;
+        String signature = null;
+        long traceId = 0;
+        long minNanos = 0;
+        boolean errorsOnly = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--run": run = args[++i]; break;
+                case "--signature": signature = args[++i]; break;
+                case "--trace": traceId = Long.parseLong(args[++i]); break;
+                case "--min-us": minNanos = Long.parseLong(args[++i]) * 1000; break;
+                case "--errors": errorsOnly = true; break;
+                default: command = args[i];
+            }
+        }
+        if (run == null) {
+            run = reader.latestRun();
+        }
+
+        TraceDictionary dictionary = reader.dictionary(run);
+        Filter filter = new Filter(dictionary, signature, traceId, minNanos, errorsOnly);
+        if ("aggregate".equals(command)) {
+            aggregate(reader, run, dictionary, filter, System.out);
+        } else {
+            decode(reader, run, dictionary, filter, System.out);
+        }
+    }
+
+    static void decode(TraceLogReader reader, String run, TraceDictionary dictionary, Filter filter,
+                       PrintStream out) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        reader.read(run, record -> {
+            if (!filter.accept(record)) {
+                return;
+            }
+            line.setLength(0);
+            line.append(Instant.ofEpochSecond(0, record.timestampNanos))
+                    .append(" [#").append(record.threadId).append("] ")
+                    .append(record.traceId).append(':').append(record.spanId).append('<').append(record.parentId)
+                    .append(' ').append("|   ".repeat(record.depth)).append(dictionary.name(record.signatureId))
+                    .append(' ').append(record.durationNanos / 1000).append("us self=")
+                    .append(record.selfNanos / 1000).append("us")
+                    .append(record.failed ? " ERROR" : "");
+            out.println(line);
+        });
+    }
+
+    static void aggregate(TraceLogReader reader, String run, TraceDictionary dictionary, Filter filter,
+                          PrintStream out) throws IOException {
+        Map<Integer, Stats> stats = new HashMap<>();
+        reader.read(run, record -> {
+            if (filter.accept(record)) {
+                stats.computeIfAbsent(record.signatureId, id -> new Stats()).add(record);
+            }
+        });
+
+        List<Map.Entry<Integer, Stats>> sorted = new ArrayList<>(stats.entrySet());
+        sorted.sort(Comparator.comparingLong((Map.Entry<Integer, Stats> e) -> e.getValue().total).reversed());
+        out.printf("%-40s %10s %8s %12s %10s %10s %12s%n", "signature", "count", "errors", "total(us)", "avg(us)", "max(us)", "self(us)");
+        for (Map.Entry<Integer, Stats> entry : sorted) {
+            Stats s = entry.getValue();
+            out.printf("%-40s %10d %8d %12d %10d %10d %12d%n", dictionary.name(entry.getKey()), s.count, s.errors,
+                    s.total / 1000, s.total / s.count / 1000, s.max / 1000, s.self / 1000);
+        }
+    }
+
+    static final class Filter {
+
+        private final TraceDictionary dictionary;
+        private final String signature;
+        private final long traceId;
+        private final long minNanos;
+        private final boolean errorsOnly;
+
+        Filter(TraceDictionary dictionary, String signature, long traceId, long minNanos, boolean errorsOnly) {
+            this.dictionary = dictionary;
+            this.signature = signature;
+            this.traceId = traceId;
+            this.minNanos = minNanos;
+            this.errorsOnly = errorsOnly;
+        }
+
+        boolean accept(TraceRecord record) {
+            return (traceId == 0 || record.traceId == traceId)
+                    && record.durationNanos >= minNanos
+                    && (!errorsOnly || record.failed)
+                    && (signature == null || dictionary.name(record.signatureId).contains(signature));
+        }
+    }
+
+    static final class Stats {
+
+        long count;
+        long errors;
+        long total;
+        long self;
+        long max;
+
+        void add(TraceRecord record) {
+            count++;
+            errors += record.failed ? 1 : 0;
+            total += record.durationNanos;
+            self += record.selfNanos;
+            max = Math.max(max, record.durationNanos);
+        }
+    }
+}
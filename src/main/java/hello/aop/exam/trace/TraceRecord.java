@@ -0,0 +1,97 @@
+package hello.aop.exam.trace;
+
+import java.nio.CharBuffer;
+
+/**
+ * 링 버퍼 한 칸 (미리 만들어 두고 계속 덮어쓴다)
+ * 문자열을 새로 만들지 않도록 인수 요약은 고정 크기 버퍼(ArgsBuffer)에 메서드별 ArgsRenderer 로 바로 쓴다.
+ */
+public final class TraceRecord {
+
+    public static final int ARGS_CAPACITY = 64;
+
+    long traceId;
+    long spanId;
+    long parentId;
+    int signatureId;
+    int stackId;
+    int depth;
+    long timestampNanos;
+    long durationNanos;
+    long selfNanos;
+    boolean failed;
+    long threadId;
+    String threadName; // Thread.getName() 이 돌려준 참조를 그대로 담는다 (복사 없음)
+    final ArgsBuffer args = new ArgsBuffer(ARGS_CAPACITY);
+
+    void copy(Span span) {
+        traceId = span.traceId;
+        spanId = span.spanId;
+        parentId = span.parentId();
+        signatureId = span.signatureId;
+        stackId = span.stackId;
+        depth = span.depth;
+        timestampNanos = span.startNanos;
+        durationNanos = span.durationNanos();
+        selfNanos = span.selfNanos();
+        failed = span.failed;
+        threadId = span.threadId;
+    }
+
+    public long traceId() {
+        return traceId;
+    }
+
+    public long spanId() {
+        return spanId;
+    }
+
+    public long parentId() {
+        return parentId;
+    }
+
+    public int stackId() {
+        return stackId;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long selfNanos() {
+        return selfNanos;
+    }
+
+    public int signatureId() {
+        return signatureId;
+    }
+
+    public long timestampNanos() {
+        return timestampNanos;
+    }
+
+    public long durationNanos() {
+        return durationNanos;
+    }
+
+    public boolean failed() {
+        return failed;
+    }
+
+    public long threadId() {
+        return threadId;
+    }
+
+    public String threadName() {
+        return threadName;
+    }
+
+    public CharSequence args() {
+        return CharBuffer.wrap(args.chars(), 0, args.length());
+    }
+
+    void writeArgs(ArgsRenderer renderer, Object[] values) {
+        args.reset();
+        renderer.render(values, args);
+    }
+}
@@ -0,0 +1,17 @@
+package hello.aop.exam.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * AsyncTraceSink 의 소비자 스레드가 기록을 내보내는 곳 (소비자 스레드 하나에서만 불린다)
+ *  - TextTraceWriter: 사람이 읽는 한 줄 텍스트
+ *  - SegmentTraceWriter: 고정 길이 바이너리 레코드, 메모리 매핑된 세그먼트 파일
+ */
+public interface TraceRecordWriter extends Closeable {
+
+    void write(TraceRecord record) throws IOException;
+
+    // 배치 하나를 다 쓴 뒤에 불린다.
+    void flush() throws IOException;
+}
@@ -0,0 +1,96 @@
+package hello.aop.exam.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 다중 생산자 / 단일 소비자 링 버퍼
+ *  - 칸(TraceRecord)은 처음에 모두 만들어 두고 재사용한다. 기록할 때 객체를 새로 만들지 않는다.
+ *  - 생산자는 claim() 으로 순번을 CAS 로 받아 칸을 채우고 publish() 한다.
+ *  - 소비자는 칸마다 공개된 순번(published)을 보고 자기 차례인 칸만 읽는다.
+ *  - 버퍼가 가득 차면 정책에 따라 버리거나(DROP) 자리가 날 때까지 기다린다(BLOCK).
+ */
+public final class TraceRingBuffer {
+
+    public enum OverflowPolicy {DROP, BLOCK}
+
+    private final TraceRecord[] slots;
+    private final int mask;
+    private final OverflowPolicy policy;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLongArray published;
+    private final LongAdder dropped = new LongAdder();
+    private volatile long consumed;
+
+    public TraceRingBuffer(int capacity, OverflowPolicy policy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new TraceRecord[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new TraceRecord();
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.policy = policy;
+    }
+
+    /**
+     * @return 채울 칸의 순번, DROP 정책에서 가득 차 있으면 -1
+     */
+    public long claim() {
+        while (true) {
+            long current = claimed.get();
+            if (current - consumed >= slots.length) {
+                if (policy == OverflowPolicy.DROP) {
+                    dropped.increment();
+                    return -1;
+                }
+                LockSupport.parkNanos(1_000);
+                continue;
+            }
+            if (claimed.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    public TraceRecord slot(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    public void publish(long sequence) {
+        published.lazySet((int) (sequence & mask), sequence);
+    }
+
+    /**
+     * 소비자 스레드 전용: 공개된 기록을 최대 maxBatch 개까지 차례대로 넘겨준다.
+     * @return 넘겨준 기록 수
+     */
+    public int drain(RecordHandler handler, int maxBatch) {
+        long next = consumed;
+        int count = 0;
+        while (count < maxBatch && published.get((int) (next & mask)) == next) {
+            handler.handle(slots[(int) (next & mask)]);
+            next++;
+            count++;
+        }
+        if (count > 0) {
+            consumed = next; // 다 읽은 뒤에 칸을 돌려준다
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public interface RecordHandler {
+        void handle(TraceRecord record);
+    }
+}
@@ -0,0 +1,68 @@
+package hello.aop.exam.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 시그니처 하나의 적응형 샘플러
+ *  - 호출 수를 LongAdder 로 세고, 창(WINDOW)이 끝날 때마다 초당 호출 수를 추정한다. (EWMA 로 완만하게)
+ *  - 남길 확률 = 목표(초당 samplesPerSecond) / 추정 호출 수 (최대 1)
+ *  - 드문 메서드는 확률이 1 이라 전부 남고, 뜨거운 메서드는 자동으로 목표 근처까지 줄어든다.
+ *  - 창을 넘기는 일은 windowStart CAS 에 성공한 스레드 하나만 하므로 락이 없다.
+ */
+public final class TraceSampler {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final double SMOOTHING = 0.5;
+
+    private final double samplesPerSecond;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final AtomicLong windowStart;
+    private volatile double estimatedRate = -1;
+    private volatile double probability = 1.0;
+
+    public TraceSampler(double samplesPerSecond, long now) {
+        this.samplesPerSecond = samplesPerSecond;
+        this.windowStart = new AtomicLong(now);
+    }
+
+    /**
+     * 이번 트레이스를 남길지 정한다. 호출 빈도를 세야 하므로 트레이스를 시작하는 호출마다 불러야 한다. (TraceContext.start)
+     */
+    public boolean sample(long now) {
+        if (samplesPerSecond <= 0) {
+            return true;
+        }
+        calls.increment();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            double rate = calls.sumThenReset() * 1e9 / (now - start);
+            double previous = estimatedRate;
+            double estimated = previous < 0 ? rate : previous + SMOOTHING * (rate - previous);
+            estimatedRate = estimated;
+            probability = estimated <= samplesPerSecond ? 1.0 : samplesPerSecond / estimated;
+        }
+
+        double p = probability;
+        if (p >= 1.0 || ThreadLocalRandom.current().nextDouble() < p) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    public double probability() {
+        return probability;
+    }
+
+    public double estimatedRate() {
+        return Math.max(0, estimatedRate);
+    }
+
+    public long skippedCount() {
+        return skipped.sum();
+    }
+}
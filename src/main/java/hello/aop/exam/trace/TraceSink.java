@@ -0,0 +1,13 @@
+package hello.aop.exam.trace;
+
+/**
+ * TraceAspect 가 남기는 호출 기록을 받는 곳
+ * 구현체는 호출 스레드를 오래 붙잡지 않아야 한다. (파일 쓰기 같은 I/O 는 다른 스레드로 넘긴다)
+ */
+public interface TraceSink {
+
+    /**
+     * @param span 끝난 스팬 (id, 부모, 시작/끝 시각, 예외 여부). 돌아간 뒤에는 span 을 붙잡고 있으면 안 된다.
+     */
+    void record(Span span, Object[] args);
+}
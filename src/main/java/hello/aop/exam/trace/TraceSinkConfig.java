@@ -0,0 +1,45 @@
+package hello.aop.exam.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * TraceAspect, AspectV7Trace 가 로그 대신 AsyncTraceSink 로 기록을 넘기게 한다.
+ *  - trace.sink.dir 을 지정하면 바이너리 세그먼트(SegmentTraceWriter), 읽을 때는 TraceLogReader
+ *    예) trace.sink.dir=trace, trace.sink.segment-size=67108864, trace.sink.max-segments=16
+ *  - trace.sink.file 을 지정하면 한 줄 텍스트(TextTraceWriter)
+ *  - 공통: trace.sink.capacity=8192, trace.sink.overflow=DROP, trace.sink.batch-size=256
+ */
+@Configuration
+public class TraceSinkConfig {
+
+    @Value("${trace.sink.capacity:8192}")
+    private int capacity;
+
+    @Value("${trace.sink.overflow:DROP}")
+    private TraceRingBuffer.OverflowPolicy overflow;
+
+    @Value("${trace.sink.batch-size:256}")
+    private int batchSize;
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty("trace.sink.dir")
+    public AsyncTraceSink segmentTraceSink(@Value("${trace.sink.dir}") String dir,
+                                           @Value("${trace.sink.segment-size:67108864}") long segmentSize,
+                                           @Value("${trace.sink.max-segments:16}") int maxSegments) throws IOException {
+        return new AsyncTraceSink(new SegmentTraceWriter(Paths.get(dir), segmentSize, maxSegments), capacity, overflow, batchSize);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty("trace.sink.file")
+    @ConditionalOnMissingBean(TraceSink.class)
+    public AsyncTraceSink textTraceSink(@Value("${trace.sink.file}") String file) throws IOException {
+        return new AsyncTraceSink(new TextTraceWriter(Paths.get(file)), capacity, overflow, batchSize);
+    }
+}
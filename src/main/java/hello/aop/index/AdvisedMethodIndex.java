@@ -0,0 +1,138 @@
+package hello.aop.index;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.InstantiationModelAwarePointcutAdvisor;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 빌드 타임에 계산한 (클래스, 메서드, 어드바이저) 목록
+ * 한 줄에 하나, 탭으로 구분한다.
+ *  A  advisor               : 인덱싱한 어드바이저 (애스펙트클래스#어드바이스메서드(파라미터))
+ *  C  class                 : 인덱싱한 클래스 (어드바이저가 하나도 없어도 기록한다)
+ *  M  class advisor method  : 정적 매칭을 통과한 메서드
+ * 인덱스에 없는 클래스나 어드바이저는 "모른다" 이므로 런타임에 원래대로 포인트컷을 매칭해야 한다.
+ */
+public class AdvisedMethodIndex {
+
+    public static final String DEFAULT_LOCATION = "classpath:META-INF/aop/advised-methods.idx";
+
+    private final Set<String> advisors = new TreeSet<>();
+    private final Map<String, Map<String, Set<String>>> classes = new TreeMap<>();
+
+    public static AdvisedMethodIndex read(Resource resource) throws IOException {
+        AdvisedMethodIndex index = new AdvisedMethodIndex();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split("\t");
+                switch (fields[0]) {
+                    case "A":
+                        index.addAdvisor(fields[1]);
+                        break;
+                    case "C":
+                        index.addClass(fields[1]);
+                        break;
+                    case "M":
+                        index.addMethod(fields[1], fields[2], fields[3]);
+                        break;
+                    default:
+                        // 주석(#) 이나 빈 줄
+                }
+            }
+        }
+        return index;
+    }
+
+    public void write(Writer out) throws IOException {
+        out.write("# advised-method index\n");
+        for (String advisor : advisors) {
+            out.write("A\t" + advisor + "\n");
+        }
+        for (Map.Entry<String, Map<String, Set<String>>> type : classes.entrySet()) {
+            out.write("C\t" + type.getKey() + "\n");
+            for (Map.Entry<String, Set<String>> advisor : type.getValue().entrySet()) {
+                for (String method : advisor.getValue()) {
+                    out.write("M\t" + type.getKey() + "\t" + advisor.getKey() + "\t" + method + "\n");
+                }
+            }
+        }
+    }
+
+    public void addAdvisor(String advisor) {
+        advisors.add(advisor);
+    }
+
+    public void addClass(String className) {
+        classes.computeIfAbsent(className, key -> new TreeMap<>());
+    }
+
+    public void addMethod(String className, String advisor, String method) {
+        classes.computeIfAbsent(className, key -> new TreeMap<>())
+                .computeIfAbsent(advisor, key -> new TreeSet<>())
+                .add(method);
+    }
+
+    public boolean containsAdvisor(String advisor) {
+        return advisor != null && advisors.contains(advisor);
+    }
+
+    public boolean containsClass(String className) {
+        return classes.containsKey(className);
+    }
+
+    /**
+     * 인덱싱한 클래스에서 이 어드바이저가 걸리는 메서드들 (없으면 빈 집합)
+     */
+    public Set<String> advisedMethods(String className, String advisor) {
+        return classes.getOrDefault(className, Collections.emptyMap()).getOrDefault(advisor, Collections.emptySet());
+    }
+
+    public int advisorCount() {
+        return advisors.size();
+    }
+
+    public int classCount() {
+        return classes.size();
+    }
+
+    /**
+     * 빌드 타임과 런타임에서 같은 어드바이저를 같은 이름으로 부르기 위한 키
+     * 빈 이름은 런타임에만 정해지므로 애스펙트 클래스와 어드바이스 메서드로 만든다.
+     * @Aspect 에서 만든 어드바이저가 아니면 null
+     */
+    public static String advisorKey(Advisor advisor) {
+        if (!(advisor instanceof InstantiationModelAwarePointcutAdvisor)) {
+            return null;
+        }
+        if (!(advisor.getAdvice() instanceof AbstractAspectJAdvice)) {
+            return null;
+        }
+        Method adviceMethod = ((AbstractAspectJAdvice) advisor.getAdvice()).getAspectJAdviceMethod();
+        return adviceMethod.getDeclaringClass().getName() + "#" + methodKey(adviceMethod);
+    }
+
+    public static String methodKey(Method method) {
+        StringBuilder sb = new StringBuilder(method.getName()).append('(');
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(parameterTypes[i].getTypeName());
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -0,0 +1,52 @@
+package hello.aop.index;
+
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * aop.index.enabled=true 이면 스프링이 등록한 자동 프록시 생성기(internalAutoProxyCreator)를
+ * IndexedAspectJAutoProxyCreator 로 바꿔 끼운다. proxyTargetClass, exposeProxy 같은 설정은 그대로 둔다.
+ *  - aop.index.location : 인덱스 위치 (기본 classpath:META-INF/aop/advised-methods.idx, ./gradlew aopIndex 가 만든다)
+ */
+@Configuration
+@ConditionalOnProperty(name = "aop.index.enabled", havingValue = "true")
+public class AdvisedMethodIndexConfig {
+
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor indexedAutoProxyCreatorRegistrar(Environment environment) {
+        return new IndexedAutoProxyCreatorRegistrar(
+                environment.getProperty("aop.index.location", AdvisedMethodIndex.DEFAULT_LOCATION));
+    }
+
+    static class IndexedAutoProxyCreatorRegistrar implements BeanDefinitionRegistryPostProcessor {
+
+        private final String indexLocation;
+
+        IndexedAutoProxyCreatorRegistrar(String indexLocation) {
+            this.indexLocation = indexLocation;
+        }
+
+        @Override
+        public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+            if (!registry.containsBeanDefinition(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME)) {
+                // @EnableAspectJAutoProxy 가 없으면 바꿀 것도 없다
+                return;
+            }
+            BeanDefinition definition = registry.getBeanDefinition(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME);
+            definition.setBeanClassName(IndexedAspectJAutoProxyCreator.class.getName());
+            definition.getPropertyValues().add("indexLocation", indexLocation);
+        }
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package hello.aop.index;
+
+import org.aspectj.weaver.internal.tools.PointcutDesignatorHandlerBasedPointcut;
+import org.aspectj.weaver.internal.tools.PointcutExpressionImpl;
+import org.aspectj.weaver.patterns.AndPointcut;
+import org.aspectj.weaver.patterns.NotPointcut;
+import org.aspectj.weaver.patterns.OrPointcut;
+import org.aspectj.weaver.tools.PointcutExpression;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.aspectj.annotation.AspectJAdvisorFactory;
+import org.springframework.aop.aspectj.annotation.ReflectiveAspectJAdvisorFactory;
+import org.springframework.aop.aspectj.annotation.SimpleMetadataAwareAspectInstanceFactory;
+import org.springframework.aop.support.MethodMatchers;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 컴파일된 클래스 디렉터리를 훑어서 AdvisedMethodIndex 를 만든다. (./gradlew aopIndex)
+ * 스프링이 프록시를 만들 때 하는 정적 매칭(AopUtils.canApply)을 그대로 미리 해 두는 것이다.
+ *  - @Aspect 클래스마다 ReflectiveAspectJAdvisorFactory 로 어드바이저를 만든다. (애스펙트 인스턴스는 만들지 않는다)
+ *  - 나머지 클래스는 초기화하지 않고 로딩해서, 클래스 자신과 인터페이스의 모든 메서드를 매칭한다.
+ * args/this/target/@target 같은 동적 부분은 여기서 "걸릴 수도 있다" 로 남고, 호출할 때 원래대로 검사된다.
+ * bean() 이 들어간 어드바이저는 빈 이름이 있어야 판단할 수 있으므로 인덱싱하지 않는다. (isStatic)
+ */
+public class AdvisedMethodIndexer {
+
+    private final AspectJAdvisorFactory advisorFactory = new ReflectiveAspectJAdvisorFactory();
+    private final ClassLoader classLoader;
+
+    public AdvisedMethodIndexer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public AdvisedMethodIndex index(List<String> classNames) {
+        List<Class<?>> aspects = new ArrayList<>();
+        List<Class<?>> targets = new ArrayList<>();
+        for (String className : classNames) {
+            Class<?> type = load(className);
+            if (type == null) {
+                continue;
+            }
+            if (advisorFactory.isAspect(type)) {
+                aspects.add(type);
+            } else if (!type.isInterface() && !type.isAnnotation() && !Modifier.isAbstract(type.getModifiers())) {
+                targets.add(type);
+            }
+        }
+
+        AdvisedMethodIndex index = new AdvisedMethodIndex();
+        List<Advisor> advisors = new ArrayList<>();
+        for (Class<?> aspect : aspects) {
+            for (Advisor advisor : advisorFactory.getAdvisors(new SimpleMetadataAwareAspectInstanceFactory(aspect, aspect.getName()))) {
+                String key = AdvisedMethodIndex.advisorKey(advisor);
+                if (key != null && advisor instanceof PointcutAdvisor && isStatic(((PointcutAdvisor) advisor).getPointcut())) {
+                    index.addAdvisor(key);
+                    advisors.add(advisor);
+                }
+            }
+        }
+        for (Class<?> target : targets) {
+            index.addClass(target.getName());
+            for (Advisor advisor : advisors) {
+                match(index, target, advisor);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 빌드 타임에 결정할 수 있는 포인트컷인지
+     * bean() 처럼 스프링이 런타임 정보(빈 이름)로 판단하는 지정자가 섞여 있으면 빌드 타임에는 아무 클래스에도 걸리지 않는다.
+     * 그런 어드바이저는 인덱스에서 빼서 "모르는 어드바이저" 로 두고, 런타임에 원래대로 매칭되게 한다.
+     * (perthis 등 AspectJExpressionPointcut 이 아닌 포인트컷도 마찬가지)
+     */
+    static boolean isStatic(Pointcut pointcut) {
+        if (!(pointcut instanceof AspectJExpressionPointcut)) {
+            return false;
+        }
+        PointcutExpression expression = ((AspectJExpressionPointcut) pointcut).getPointcutExpression();
+        // 이름으로 참조한 포인트컷(Pointcuts.allOrder() 등)은 이미 펼쳐진 상태다
+        return expression instanceof PointcutExpressionImpl
+                && isStatic(((PointcutExpressionImpl) expression).getUnderlyingPointcut());
+    }
+
+    private static boolean isStatic(org.aspectj.weaver.patterns.Pointcut pointcut) {
+        if (pointcut instanceof PointcutDesignatorHandlerBasedPointcut) {
+            return false; // bean()
+        }
+        if (pointcut instanceof AndPointcut) {
+            return isStatic(((AndPointcut) pointcut).getLeft()) && isStatic(((AndPointcut) pointcut).getRight());
+        }
+        if (pointcut instanceof OrPointcut) {
+            return isStatic(((OrPointcut) pointcut).getLeft()) && isStatic(((OrPointcut) pointcut).getRight());
+        }
+        if (pointcut instanceof NotPointcut) {
+            return isStatic(((NotPointcut) pointcut).getNegatedPointcut());
+        }
+        return true;
+    }
+
+    private void match(AdvisedMethodIndex index, Class<?> targetClass, Advisor advisor) {
+        PointcutAdvisor pointcutAdvisor = (PointcutAdvisor) advisor;
+        if (!pointcutAdvisor.getPointcut().getClassFilter().matches(targetClass)) {
+            return;
+        }
+        MethodMatcher methodMatcher = pointcutAdvisor.getPointcut().getMethodMatcher();
+        String key = AdvisedMethodIndex.advisorKey(advisor);
+
+        // AopUtils.canApply 와 같은 범위: 클래스 자신 + 구현한 모든 인터페이스
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        classes.add(targetClass);
+        classes.addAll(ClassUtils.getAllInterfacesForClassAsSet(targetClass));
+        for (Class<?> type : classes) {
+            for (Method method : ReflectionUtils.getAllDeclaredMethods(type)) {
+                if (MethodMatchers.matches(methodMatcher, method, targetClass, false)) {
+                    index.addMethod(targetClass.getName(), key, AdvisedMethodIndex.methodKey(method));
+                }
+            }
+        }
+    }
+
+    private Class<?> load(String className) {
+        try {
+            Class<?> type = Class.forName(className, false, classLoader);
+            type.getDeclaredMethods();
+            return type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            // 선택적 의존성이 없는 클래스 등은 건너뛴다. 인덱스에 없으면 런타임에 원래대로 매칭한다.
+            return null;
+        }
+    }
+
+    static List<String> classNames(Path classesDir) throws IOException {
+        if (!Files.isDirectory(classesDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(classesDir)) {
+            return files.filter(file -> file.toString().endsWith(".class"))
+                    .map(file -> classesDir.relativize(file).toString())
+                    .filter(name -> !name.endsWith("package-info.class") && !name.endsWith("module-info.class"))
+                    .map(name -> name.substring(0, name.length() - ".class".length()).replace('/', '.').replace('\\', '.'))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: AdvisedMethodIndexer <output> <classesDir>...");
+            System.exit(1);
+        }
+        Path output = Paths.get(args[0]);
+        List<String> classNames = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            classNames.addAll(classNames(Paths.get(args[i])));
+        }
+
+        AdvisedMethodIndex index = new AdvisedMethodIndexer(ClassUtils.getDefaultClassLoader()).index(classNames);
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            index.write(out);
+        }
+        System.out.println("indexed " + index.classCount() + " classes, " + index.advisorCount() + " advisors to " + output.toAbsolutePath());
+    }
+}
@@ -0,0 +1,86 @@
+package hello.aop.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.annotation.AnnotationAwareAspectJAutoProxyCreator;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * AdvisedMethodIndex 를 먼저 보고, 인덱스가 아는 (클래스, 어드바이저) 는 포인트컷 매칭을 건너뛰는 자동 프록시 생성기
+ * 인덱스에 없는 클래스(런타임에 만든 클래스, 테스트 클래스 등)나 어드바이저(@Aspect 가 아닌 Advisor 빈 등)는
+ * 원래대로 AnnotationAwareAspectJAutoProxyCreator 가 매칭한다.
+ * 메서드별 매칭(어떤 메서드에 어떤 어드바이스 체인을 쓸지)은 호출 시점에 프록시가 원래대로 하고 결과를 캐시한다.
+ *
+ * 인덱스가 빌드보다 오래되면 틀린 결과가 나오므로 ./gradlew aopIndex 를 classes 와 함께 돌려야 한다.
+ */
+@Slf4j
+public class IndexedAspectJAutoProxyCreator extends AnnotationAwareAspectJAutoProxyCreator {
+
+    private String indexLocation = AdvisedMethodIndex.DEFAULT_LOCATION;
+    private AdvisedMethodIndex index = new AdvisedMethodIndex();
+
+    public void setIndexLocation(String indexLocation) {
+        this.indexLocation = indexLocation;
+    }
+
+    public AdvisedMethodIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    protected void initBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        super.initBeanFactory(beanFactory);
+        Resource resource = new DefaultResourceLoader(beanFactory.getBeanClassLoader()).getResource(indexLocation);
+        if (!resource.exists()) {
+            log.warn("[aop-index] {} 가 없어서 모든 빈을 포인트컷으로 매칭한다", indexLocation);
+            return;
+        }
+        try {
+            index = AdvisedMethodIndex.read(resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("[aop-index] {} classes, {} advisors", index.classCount(), index.advisorCount());
+    }
+
+    @Override
+    protected List<Advisor> findAdvisorsThatCanApply(List<Advisor> candidateAdvisors, Class<?> beanClass, String beanName) {
+        String className = ClassUtils.getUserClass(beanClass).getName();
+        if (!index.containsClass(className)) {
+            return super.findAdvisorsThatCanApply(candidateAdvisors, beanClass, beanName);
+        }
+
+        Set<Advisor> eligible = new HashSet<>();
+        List<Advisor> unknown = new ArrayList<>();
+        for (Advisor advisor : candidateAdvisors) {
+            String key = AdvisedMethodIndex.advisorKey(advisor);
+            if (!index.containsAdvisor(key)) {
+                unknown.add(advisor);
+            } else if (!index.advisedMethods(className, key).isEmpty()) {
+                eligible.add(advisor);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            eligible.addAll(super.findAdvisorsThatCanApply(unknown, beanClass, beanName));
+        }
+
+        // 정렬(sortAdvisors)이 입력 순서의 영향을 받으므로 원래 순서를 지킨다
+        List<Advisor> result = new ArrayList<>(eligible.size());
+        for (Advisor advisor : candidateAdvisors) {
+            if (eligible.contains(advisor)) {
+                result.add(advisor);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package hello.aop.internalcall;
+
+import hello.aop.exam.annotation.SelfProxy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 대안4: @SelfProxy 로 자기 자신의 프록시를 한 번만 받아 둔다. (SelfProxyBeanPostProcessor)
+ *  - V1 처럼 자기 자신을 주입받지 않으므로 순환 참조 허용(allow-circular-references)이 필요 없다.
+ *  - V2 처럼 호출할 때마다 ObjectProvider 로 컨테이너를 조회하지 않는다.
+ * 그래도 구조를 분리하는 V3 가 가장 권장하는 방법인 것은 같다. 분리하기 어려울 때 쓰자.
+ */
+@Slf4j
+@Component
+public class CallServiceV4 {
+
+    @SelfProxy
+    private CallServiceV4 self;
+
+    public void external() {
+        log.info("call external");
+        self.internal(); // 외부 메서드 호출 (프록시를 거친다)
+    }
+
+    public void internal() {
+        log.info("call internal");
+    }
+}
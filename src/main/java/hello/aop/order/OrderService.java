@@ -1,5 +1,6 @@
 package hello.aop.order;
 
+import hello.aop.exam.annotation.RateLimit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -13,6 +14,7 @@ public class OrderService {
         this.orderRepository = orderRepository;
     }
 
+    @RateLimit(permitsPerSecond = 100, key = "#itemId") // RateLimitAspect 를 등록하면 상품별로 초당 100건까지만 주문 가능
     public void orderItem(String itemId) {
         log.info("[orderService] 실행");
         orderRepository.save(itemId);
@@ -0,0 +1,51 @@
+package hello.aop.order.aop;
+
+import hello.aop.exam.trace.SignatureRegistry;
+import hello.aop.exam.trace.Span;
+import hello.aop.exam.trace.TraceContext;
+import hello.aop.exam.trace.TraceSink;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * AspectV1 ~ V6 는 어드바이스 동작을 보여주려고 문자열 로그를 남긴다.
+ * 운영에서 order 패키지 호출을 기록하려면 이 애스펙트를 쓴다.
+ *  - 문자열을 만들지 않고 스팬(시그니처 id, 시각, 부모/자식)만 TraceSink 에 넘긴다.
+ *  - @Trace 가 붙은 호출과 같은 TraceContext 를 쓰므로, 서로 섞여 있어도 부모/자식으로 이어진다.
+ *  - TraceSink 빈이 없으면 아무것도 하지 않고 바로 실행한다.
+ */
+@Slf4j
+@Aspect
+public class AspectV7Trace {
+
+    private TraceSink sink;
+
+    @Autowired(required = false)
+    public void setTraceSink(TraceSink sink) {
+        this.sink = sink;
+    }
+
+    @Around("hello.aop.order.aop.Pointcuts.allOrder()")
+    public Object doTrace(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (sink == null) {
+            return joinPoint.proceed();
+        }
+
+        long start = System.nanoTime();
+        int signatureId = SignatureRegistry.getInstance().id(((MethodSignature) joinPoint.getSignature()).getMethod());
+        Span span = TraceContext.start(signatureId, start);
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            TraceContext.end(span, System.nanoTime(), failed);
+            sink.record(span, joinPoint.getArgs());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package hello.aop.order.aop;
+
+import hello.aop.exam.trace.SignatureRegistry;
+import hello.aop.exam.trace.SlowCall;
+import hello.aop.exam.trace.SlowCallTopN;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AspectV1 처럼 모든 호출을 로그로 남기지 않고, 기준 시간(threshold)보다 느린 호출만 기록한다.
+ *  - 빠른 호출은 System.nanoTime() 두 번과 비교 한 번으로 끝난다.
+ *  - 느린 호출은 시그니처별 SlowCallTopN 에 인수(ArgsRenderer 로 길이 제한)와 함께 넣는다. (최근 maxAge 안에서 가장 느린 topN 개만 남는다)
+ *  - snapshot() 으로 지금까지 모인 느린 호출을 꺼내 볼 수 있다.
+ *
+ * 설정: order.slow-call.threshold-ms(기본 100), order.slow-call.top-n(기본 10), order.slow-call.max-age-ms(기본 60000)
+ */
+@Slf4j
+@Aspect
+public class AspectV8SlowCall {
+
+    private final Map<Method, SlowCallTopN> slowCalls = new ConcurrentHashMap<>();
+    private long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private int topN = 10;
+    private long maxAgeMillis = TimeUnit.MINUTES.toMillis(1);
+
+    @Value("${order.slow-call.threshold-ms:100}")
+    public void setThreshold(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    @Value("${order.slow-call.top-n:10}")
+    public void setTopN(int topN) {
+        this.topN = topN;
+    }
+
+    @Value("${order.slow-call.max-age-ms:60000}")
+    public void setMaxAge(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    @Around("hello.aop.order.aop.Pointcuts.allOrder()")
+    public Object doSlowCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long duration = System.nanoTime() - start;
+            if (duration >= thresholdNanos) {
+                // 기록이 실패해도 대상 메서드의 결과나 예외를 가리지 않는다.
+                try {
+                    record(joinPoint, duration, failed);
+                } catch (RuntimeException e) {
+                    log.warn("[slow] record failed: {}", joinPoint.getSignature().toShortString(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 시그니처별 느린 호출 (느린 순)
+     */
+    public Map<String, List<SlowCall>> snapshot() {
+        Map<String, List<SlowCall>> snapshot = new ConcurrentHashMap<>();
+        slowCalls.forEach((method, calls) -> {
+            List<SlowCall> list = calls.snapshot();
+            if (!list.isEmpty()) {
+                snapshot.put(method.getDeclaringClass().getSimpleName() + "." + method.getName(), list);
+            }
+        });
+        return snapshot;
+    }
+
+    public List<SlowCall> snapshot(Method method) {
+        SlowCallTopN calls = slowCalls.get(method);
+        return calls == null ? List.of() : calls.snapshot();
+    }
+
+    private void record(ProceedingJoinPoint joinPoint, long duration, boolean failed) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        SlowCallTopN calls = slowCalls.computeIfAbsent(method, m -> new SlowCallTopN(topN, maxAgeMillis));
+        SignatureRegistry registry = SignatureRegistry.getInstance();
+        String args = registry.renderer(registry.id(method)).format(joinPoint.getArgs());
+        SlowCall call = new SlowCall(joinPoint.getSignature().toShortString(), duration, System.currentTimeMillis(),
+                args, failed);
+        if (calls.offer(call)) {
+            log.info("[slow] {} {}ms args={}", call.signature(), TimeUnit.NANOSECONDS.toMillis(duration), call.args());
+        }
+    }
+}
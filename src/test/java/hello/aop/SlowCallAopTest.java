@@ -0,0 +1,58 @@
+package hello.aop;
+
+import hello.aop.exam.trace.SlowCall;
+import hello.aop.order.OrderRepository;
+import hello.aop.order.aop.AspectV8SlowCall;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * AspectV8SlowCall: 기준 시간을 넘긴 호출만 시그니처별 top-N 으로 남는다.
+ */
+public class SlowCallAopTest {
+
+    @Test
+    void belowThreshold() {
+        AspectV8SlowCall aspect = new AspectV8SlowCall();
+        aspect.setThreshold(10_000);
+        OrderRepository repository = proxy(aspect);
+
+        for (int i = 0; i < 10; i++) {
+            repository.save("item" + i);
+        }
+        assertThat(aspect.snapshot()).isEmpty();
+    }
+
+    @Test
+    void topN() {
+        AspectV8SlowCall aspect = new AspectV8SlowCall();
+        aspect.setThreshold(0); // 모든 호출이 느린 호출
+        aspect.setTopN(3);
+        OrderRepository repository = proxy(aspect);
+
+        for (int i = 0; i < 10; i++) {
+            repository.save("item" + i);
+        }
+        assertThatThrownBy(() -> repository.save("ex")).isInstanceOf(IllegalStateException.class);
+
+        Map<String, List<SlowCall>> snapshot = aspect.snapshot();
+        assertThat(snapshot).containsOnlyKeys("OrderRepository.save");
+        List<SlowCall> calls = snapshot.get("OrderRepository.save");
+        assertThat(calls).hasSize(3);
+        assertThat(calls).isSortedAccordingTo((a, b) -> Long.compare(b.durationNanos(), a.durationNanos()));
+        assertThat(calls).allMatch(call -> call.args().startsWith("[item") || call.args().equals("[ex]"));
+    }
+
+    private OrderRepository proxy(AspectV8SlowCall aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new OrderRepository());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+}
@@ -0,0 +1,75 @@
+package hello.aop;
+
+import hello.aop.exam.trace.SignatureRegistry;
+import hello.aop.exam.trace.Span;
+import hello.aop.exam.trace.TraceSink;
+import hello.aop.order.OrderService;
+import hello.aop.order.aop.AspectV7Trace;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * AspectV7Trace: order 패키지 호출이 문자열 로그 없이 스팬으로 TraceSink 에 넘어가는지 확인한다.
+ */
+@SpringBootTest
+@Import({AspectV7Trace.class, TraceAopTest.Config.class})
+public class TraceAopTest {
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    RecordingSink sink;
+
+    @Test
+    void spans() {
+        sink.spans.clear();
+        orderService.orderItem("itemA");
+
+        // 자식(OrderRepository.save)이 먼저 끝나서 먼저 기록된다.
+        assertThat(sink.spans).hasSize(2);
+        Span save = sink.spans.get(0);
+        Span order = sink.spans.get(1);
+        assertThat(SignatureRegistry.getInstance().name(save.signatureId())).isEqualTo("OrderRepository.save");
+        assertThat(SignatureRegistry.getInstance().name(order.signatureId())).isEqualTo("OrderService.orderItem");
+        assertThat(save.parentId()).isEqualTo(order.spanId());
+        assertThat(order.parentId()).isZero();
+        assertThat(order.selfNanos()).isEqualTo(order.durationNanos() - save.durationNanos());
+    }
+
+    @Test
+    void exception() {
+        sink.spans.clear();
+        assertThatThrownBy(() -> orderService.orderItem("ex")).isInstanceOf(IllegalStateException.class);
+
+        assertThat(sink.spans).allMatch(Span::failed);
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+
+    static class RecordingSink implements TraceSink {
+
+        final List<Span> spans = new ArrayList<>();
+
+        @Override
+        public void record(Span span, Object[] args) {
+            spans.add(span);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package hello.aop.exam;
+
+import hello.aop.exam.aop.AdaptiveLimitAspect;
+import hello.aop.exam.support.AdaptiveLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CompletableFuture 를 돌려주는 저장소 메서드는 future 가 끝날 때까지 AdaptiveLimiter 의 자리를 차지한다.
+ * 리미터는 저장소(대상 클래스)마다 따로 둔다. 같은 부모 클래스의 메서드를 불러도 섞이지 않는다.
+ */
+public class AdaptiveLimitAspectTest {
+
+    @Test
+    void asyncHoldsPermitUntilComplete() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+            AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+            context.register(AdaptiveLimitAspect.class);
+            context.registerBean("pendingRepository", PendingRepository.class);
+            context.refresh();
+
+            PendingRepository repository = context.getBean(PendingRepository.class);
+            AdaptiveLimiter limiter = context.getBean(AdaptiveLimitAspect.class).limiter(PendingRepository.class);
+
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            CompletableFuture<String> result = repository.load(pending);
+            assertThat(result).isSameAs(pending);
+            assertThat(limiter.inFlight()).isEqualTo(1); // 돌아왔지만 아직 끝나지 않았다
+
+            pending.complete("ok");
+            assertThat(limiter.inFlight()).isZero();
+
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            repository.load(failed);
+            assertThat(limiter.inFlight()).isEqualTo(1);
+            failed.completeExceptionally(new IllegalStateException("예외 발생"));
+            assertThat(limiter.inFlight()).isZero();
+
+            assertThat(repository.find("data")).isEqualTo("data");
+            assertThat(limiter.inFlight()).isZero();
+        }
+    }
+
+    @Test
+    void limiterPerTargetClass() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+            AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+            context.register(AdaptiveLimitAspect.class);
+            context.registerBean("orderRepository", OrderRepository.class);
+            context.registerBean("itemRepository", ItemRepository.class);
+            context.refresh();
+
+            AdaptiveLimitAspect aspect = context.getBean(AdaptiveLimitAspect.class);
+            OrderRepository orderRepository = context.getBean(OrderRepository.class);
+            ItemRepository itemRepository = context.getBean(ItemRepository.class);
+
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            orderRepository.load(pending); // PendingRepository 에 선언된 메서드
+            assertThat(aspect.limiter(OrderRepository.class).inFlight()).isEqualTo(1);
+            assertThat(aspect.limiter(ItemRepository.class)).isNull();
+            assertThat(aspect.limiter(PendingRepository.class)).isNull();
+
+            itemRepository.load(new CompletableFuture<>());
+            assertThat(aspect.limiter(ItemRepository.class).inFlight()).isEqualTo(1);
+            assertThat(aspect.limiter(OrderRepository.class).inFlight()).isEqualTo(1);
+
+            pending.complete("ok");
+            assertThat(aspect.limiter(OrderRepository.class).inFlight()).isZero();
+            assertThat(aspect.limiter(ItemRepository.class).inFlight()).isEqualTo(1);
+        }
+    }
+
+    static class OrderRepository extends PendingRepository {
+    }
+
+    static class ItemRepository extends PendingRepository {
+    }
+
+    static class PendingRepository {
+
+        public CompletableFuture<String> load(CompletableFuture<String> pending) {
+            return pending;
+        }
+
+        public String find(String itemId) {
+            return itemId;
+        }
+    }
+}
@@ -1,21 +1,34 @@
 package hello.aop.exam;
 
 
+import hello.aop.exam.aop.AdaptiveLimitAspect;
+import hello.aop.exam.aop.BulkheadAspect;
+import hello.aop.exam.aop.CircuitBreakerAspect;
 import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.aop.TimeoutAspect;
 import hello.aop.exam.aop.TraceAspect;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.springframework.aop.config.AopConfigUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Import;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 /**
  * 참고
  * 스프링이 제공하는 @Transactional 은 가장 대표적인 AOP이다.
  */
 @Slf4j
 //@Import(TraceAspect.class)
-@Import({TraceAspect.class, RetryAspect.class})
+@Import({TraceAspect.class, RetryAspect.class, CircuitBreakerAspect.class, BulkheadAspect.class, AdaptiveLimitAspect.class,
+        TimeoutAspect.class})
 @SpringBootTest
 public class ExamTest {
 
@@ -33,4 +46,34 @@ public class ExamTest {
         }
     }
 
+    /**
+     * 비동기 재시도: future 가 실패로 끝나도 RetryAspect 가 백오프 후 다시 시도해서 모두 "ok" 로 끝난다.
+     */
+    @Test
+    void asyncTest() {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(examService.requestAsync("data" + i));
+        }
+        for (CompletableFuture<String> future : futures) {
+            assertThat(future.join()).isEqualTo("ok");
+        }
+    }
+
+    /**
+     * TraceAspect 는 빈이 프록시될 때 @Trace 메서드의 정책(시그니처 id, 인수 렌더러, 샘플러)을 만들어 둔다. 호출하기 전에 이미 있다.
+     */
+    @Test
+    void tracePolicyAtStartup() throws NoSuchMethodException {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+            AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+            context.register(TraceAspect.class, ExamRepository.class, ExamService.class);
+            context.refresh();
+
+            TraceAspect traceAspect = context.getBean(TraceAspect.class);
+            assertThat(traceAspect.sampler(ExamService.class.getMethod("request", String.class))).isNotNull();
+            assertThat(traceAspect.sampler(ExamRepository.class.getMethod("save", String.class))).isNotNull();
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Hedge;
+import hello.aop.exam.aop.HedgeAspect;
+import hello.aop.exam.support.HedgePolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 스프링 컨테이너 없이 AspectJProxyFactory 로 프록시를 직접 만들어서 HedgeAspect 를 확인한다.
+ * 느린 시도는 시간이 아니라 latch 로 만든다. 첫 시도는 취소될 때까지 끝나지 않으므로 결과는 항상 헤지 요청이 낸다.
+ */
+@Slf4j
+public class HedgeTest {
+
+    private static final int CALLS = 5;
+
+    /**
+     * 첫 시도가 멈춰 있어도 헤지 요청이 먼저 끝나서 결과를 돌려주고, 멈춘 첫 시도는 인터럽트로 취소된다.
+     */
+    @Test
+    void hedge() throws Exception {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new StuckService());
+        HedgeAspect hedgeAspect = new HedgeAspect();
+        factory.addAspect(hedgeAspect);
+        StuckService proxy = factory.getProxy();
+
+        CountDownLatch cancelled = new CountDownLatch(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            assertThat(proxy.find(new AtomicBoolean(true), cancelled)).isEqualTo("fast");
+        }
+
+        HedgePolicy policy = hedgeAspect.policy(StuckService.class.getMethod("find", AtomicBoolean.class, CountDownLatch.class));
+        assertThat(policy.hedgedCount()).isEqualTo(CALLS);
+        assertThat(policy.hedgeWinCount()).isEqualTo(CALLS);
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue(); // 늦은 첫 시도가 모두 취소됨
+    }
+
+    static class StuckService {
+
+        /**
+         * @param primary 처음 들어온 시도만 true 를 가져간다. 같은 호출의 헤지 요청은 false 를 보고 바로 끝난다.
+         * delay 는 첫 시도가 헤지 풀 스레드에서 헤지 요청보다 먼저 시작하도록 주는 여유다. (응답 시간을 재는 데는 쓰지 않는다)
+         */
+        @Hedge(delay = 100, maxHedgeRatio = 1.0)
+        public String find(AtomicBoolean primary, CountDownLatch cancelled) {
+            if (!primary.compareAndSet(true, false)) {
+                return "fast";
+            }
+            try {
+                new CountDownLatch(1).await(); // 취소(인터럽트)될 때까지 끝나지 않는 첫 시도
+                return "primary";
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+                Thread.currentThread().interrupt();
+                return "cancelled";
+            }
+        }
+    }
+}
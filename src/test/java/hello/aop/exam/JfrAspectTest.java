@@ -0,0 +1,106 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Retry;
+import hello.aop.exam.annotation.Trace;
+import hello.aop.exam.aop.JfrAspect;
+import hello.aop.exam.aop.RetryAspect;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JfrAspect: 재시도 한 번마다 AdvisedMethodEvent 하나가 회차와 결과를 담아 기록된다.
+ */
+public class JfrAspectTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void events() throws Exception {
+        FlakyService proxy = proxy();
+        Path file = dir.resolve("aop.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("hello.aop.AdvisedMethod").withoutThreshold();
+            recording.start();
+            assertThat(proxy.save("item")).isEqualTo("ok");
+            proxy.find("item");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("hello.aop.AdvisedMethod"))
+                .collect(Collectors.toList());
+
+        List<RecordedEvent> saves = events.stream()
+                .filter(event -> event.getString("signature").equals("FlakyService.save"))
+                .collect(Collectors.toList());
+        assertThat(saves).extracting(event -> event.getInt("attempt")).containsExactly(1, 2, 3);
+        assertThat(saves).extracting(event -> event.getString("outcome")).containsExactly("FAILURE", "FAILURE", "SUCCESS");
+        assertThat(saves.get(0).getString("exception")).isEqualTo(IllegalStateException.class.getName());
+
+        RecordedEvent find = events.stream()
+                .filter(event -> event.getString("signature").equals("FlakyService.find"))
+                .findFirst().orElseThrow();
+        assertThat(find.getInt("attempt")).isZero();
+        assertThat(find.getDuration().isNegative()).isFalse();
+    }
+
+    /**
+     * 기본(default) 설정으로 기록해도 이벤트는 꺼져 있어서 아무것도 남지 않고 그대로 실행된다.
+     */
+    @Test
+    void disabled() throws Exception {
+        FlakyService proxy = proxy();
+        Path file = dir.resolve("default.jfr");
+
+        try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+            recording.start();
+            assertThat(proxy.save("item")).isEqualTo("ok");
+            proxy.find("item");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        assertThat(RecordingFile.readAllEvents(file))
+                .noneMatch(event -> event.getEventType().getName().equals("hello.aop.AdvisedMethod"));
+    }
+
+    private FlakyService proxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new FlakyService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(RetryAspect.class);
+        factory.addAspect(JfrAspect.class);
+        return factory.getProxy();
+    }
+
+    static class FlakyService {
+
+        private int calls;
+
+        @Retry(3)
+        public String save(String itemId) {
+            if (++calls < 3) {
+                throw new IllegalStateException("예외 발생");
+            }
+            return "ok";
+        }
+
+        @Trace
+        public String find(String itemId) {
+            return "ok";
+        }
+    }
+}
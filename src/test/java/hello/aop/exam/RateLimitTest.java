@@ -0,0 +1,105 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.RateLimit;
+import hello.aop.exam.aop.RateLimitAspect;
+import hello.aop.exam.exception.RateLimitExceededException;
+import hello.aop.order.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@Import(RateLimitAspect.class)
+@SpringBootTest
+public class RateLimitTest {
+
+    @Autowired OrderService orderService;
+
+    /**
+     * 상품(itemId)별로 초당 100건: itemA 를 몰아서 주문하면 100건 남짓에서 거절되지만, itemB 는 여전히 주문할 수 있다.
+     * (호출하는 동안에도 토큰이 조금씩 다시 차므로 정확히 100건은 아니다)
+     */
+    @Test
+    void rateLimitByItem() {
+        int accepted = 0;
+        try {
+            while (accepted < 1000) {
+                orderService.orderItem("itemA");
+                accepted++;
+            }
+        } catch (RateLimitExceededException e) {
+            log.info("itemA accepted={} before rejection", accepted);
+        }
+        assertThat(accepted).isBetween(100, 999);
+        orderService.orderItem("itemB");
+    }
+
+    /**
+     * 오타 난 키는 모든 호출이 한 버킷을 나눠 쓰게 만드므로, 첫 호출에서 바로 실패한다.
+     */
+    @Test
+    void unresolvedKey() {
+        BadService proxy = proxy();
+        assertThatThrownBy(() -> proxy.typo("itemA"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("#itemid");
+        assertThatThrownBy(() -> proxy.outOfRange("itemA"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("#p1");
+    }
+
+    @Test
+    void nonPositiveRate() {
+        BadService proxy = proxy();
+        assertThatThrownBy(() -> proxy.zeroRate("itemA"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("permitsPerSecond");
+    }
+
+    /**
+     * 컨테이너에서는 첫 호출까지 기다리지 않고 빈이 프록시될 때 바로 실패한다.
+     */
+    @Test
+    void failsAtStartup() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+        AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+        context.register(RateLimitAspect.class);
+        context.registerBean("badService", BadService.class);
+
+        assertThatThrownBy(context::refresh)
+                .isInstanceOf(BeanCreationException.class)
+                .hasMessageContaining("badService")
+                .hasMessageContaining("@RateLimit");
+    }
+
+    private BadService proxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new BadService());
+        factory.addAspect(RateLimitAspect.class);
+        return factory.getProxy();
+    }
+
+    static class BadService {
+
+        @RateLimit(permitsPerSecond = 10, key = "#itemid")
+        public void typo(String itemId) {
+        }
+
+        @RateLimit(permitsPerSecond = 10, key = "#p1")
+        public void outOfRange(String itemId) {
+        }
+
+        @RateLimit(permitsPerSecond = 0, key = "#itemId")
+        public void zeroRate(String itemId) {
+        }
+    }
+}
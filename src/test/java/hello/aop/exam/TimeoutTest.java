@@ -0,0 +1,102 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Timeout;
+import hello.aop.exam.aop.TimeoutAspect;
+import hello.aop.exam.exception.CallTimeoutException;
+import hello.aop.exam.support.HashedWheelTimer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 스프링 컨테이너 없이 AspectJProxyFactory 로 프록시를 직접 만들어서 TimeoutAspect 를 확인한다.
+ */
+@Slf4j
+public class TimeoutTest {
+
+    @Test
+    void timeout() {
+        SlowService proxy = proxy();
+
+        assertThat(proxy.call(0)).isEqualTo("ok");
+        assertThatThrownBy(() -> proxy.call(1000)).isInstanceOf(CallTimeoutException.class);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse(); // 인터럽트가 새지 않는다
+    }
+
+    @Test
+    void asyncTimeout() {
+        SlowService proxy = proxy();
+
+        assertThat(proxy.callAsync(0).join()).isEqualTo("ok");
+        assertThatThrownBy(() -> proxy.callAsync(1000).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(CallTimeoutException.class);
+    }
+
+    /**
+     * 많이 걸고 절반을 취소하면 나머지 절반만 만료된다.
+     * 닫으면 아직 걸려 있던 작업은 실행되지 않고 모두 취소된다.
+     */
+    @Test
+    void wheel() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        try (HashedWheelTimer timer = new HashedWheelTimer("test-wheel", 1, TimeUnit.MILLISECONDS, 64)) {
+            List<HashedWheelTimer.Timeout> timeouts = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                timeouts.add(timer.newTimeout(fired::incrementAndGet, 200 + i % 100, TimeUnit.MILLISECONDS));
+            }
+            for (int i = 0; i < timeouts.size(); i += 2) {
+                assertThat(timeouts.get(i).cancel()).isTrue();
+            }
+            assertThat(timer.pendingCount()).isEqualTo(5_000);
+
+            Thread.sleep(600);
+            assertThat(fired.get()).isEqualTo(5_000);
+            assertThat(timer.expiredCount()).isEqualTo(5_000);
+            assertThat(timer.pendingCount()).isZero();
+
+            HashedWheelTimer.Timeout late = timer.newTimeout(fired::incrementAndGet, 10, TimeUnit.SECONDS);
+            timer.close();
+            assertThat(timer.pendingCount()).isZero();
+            assertThat(late.cancel()).isFalse(); // 닫을 때 이미 취소됨
+            assertThat(late.isExpired()).isFalse();
+            assertThatThrownBy(() -> timer.newTimeout(fired::incrementAndGet, 1, TimeUnit.MILLISECONDS))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(fired.get()).isEqualTo(5_000);
+    }
+
+    private SlowService proxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new SlowService());
+        factory.addAspect(TimeoutAspect.class);
+        return factory.getProxy();
+    }
+
+    static class SlowService {
+
+        @Timeout(100)
+        public String call(long sleepMs) {
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "ok";
+        }
+
+        @Timeout(100)
+        public CompletableFuture<String> callAsync(long sleepMs) {
+            return CompletableFuture.supplyAsync(() -> call(sleepMs));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package hello.aop.exam;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import hello.aop.exam.annotation.Trace;
+import hello.aop.exam.aop.TraceAspect;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 샘플링에서 빠진 @Trace 호출 한 번에 TraceAspect 가 더 할당하는 바이트를 트레이스 켬/끔으로 비교한다.
+ * 스프링 AOP 프록시 자체(MethodInvocation, JoinPoint 등)의 할당은 양쪽에 똑같이 들어 있으므로,
+ * 차이가 TraceAspect 가 켜져 있을 때만 쓰는 양이다. (스팬은 스레드별 풀에서 다시 쓴다)
+ *
+ * request 는 실제 ExamService.request 프록시로 잰다. ExamRepository.save 는 5번에 1번 예외를 던져서
+ * 예외 객체(스택 트레이스)와 실패 기록이 측정을 흔드므로, 항상 성공하는 StubRepository 로 바꿔 둔다.
+ */
+@Slf4j
+@Import({TraceAspect.class, TraceAllocationTest.Config.class})
+@SpringBootTest
+public class TraceAllocationTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int CALLS = 20_000;
+
+    // 샘플링된 호출(초당 samplesPerSecond 번)의 할당이 수만 번의 호출에 나뉘어 들어가는 정도. 호출 경로 자체는 0 이어야 한다.
+    private static final long MAX_UNSAMPLED_BYTES = 8;
+
+    @Autowired ExamService examService;
+
+    private final Logger traceLogger = (Logger) LoggerFactory.getLogger(TraceAspect.class);
+
+    @AfterEach
+    void restore() {
+        traceLogger.setLevel(null);
+    }
+
+    @Test
+    void request() {
+        long off;
+        long on;
+        traceLogger.setLevel(Level.OFF);
+        off = bytesPerCall(() -> examService.request("data"));
+
+        traceLogger.setLevel(Level.INFO);
+        traceLogger.setAdditive(false);
+        try {
+            settle(() -> examService.request("data"));
+            on = bytesPerCall(() -> examService.request("data"));
+        } finally {
+            traceLogger.setAdditive(true);
+        }
+
+        log.info("allocated bytes per ExamService.request: trace off={} on={}", off, on);
+        assertThat(on - off).isLessThanOrEqualTo(MAX_UNSAMPLED_BYTES);
+    }
+
+    @Test
+    void unsampled() {
+        QuietService proxy = quietProxy();
+
+        traceLogger.setLevel(Level.OFF);
+        long off = bytesPerCall(() -> proxy.call("data"));
+
+        traceLogger.setLevel(Level.INFO);
+        traceLogger.setAdditive(false);
+        long on;
+        try {
+            settle(() -> proxy.call("data"));
+            on = bytesPerCall(() -> proxy.call("data"));
+        } finally {
+            traceLogger.setAdditive(true);
+        }
+
+        log.info("allocated bytes per unsampled call: trace off={} on={}", off, on);
+        assertThat(on - off).isLessThanOrEqualTo(MAX_UNSAMPLED_BYTES);
+    }
+
+    // 샘플러는 첫 창(250ms) 동안 모두 남기므로, 호출 빈도를 추정할 때까지 충분히 돌린다.
+    private void settle(Runnable call) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+        while (System.nanoTime() < until) {
+            call.run();
+        }
+    }
+
+    private long bytesPerCall(Runnable call) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CALLS; i++) {
+            call.run();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / CALLS;
+    }
+
+    private QuietService quietProxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new QuietService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(TraceAspect.class);
+        return factory.getProxy();
+    }
+
+    static class QuietService {
+
+        @Trace(samplesPerSecond = 1, slowThreshold = 10_000)
+        public String call(String itemId) {
+            return itemId;
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        @Primary
+        StubRepository stubRepository() {
+            return new StubRepository();
+        }
+    }
+
+    // 애노테이션 없이 save 를 덮어써서 재시도/서킷 브레이커/트레이스 없이 항상 성공한다.
+    static class StubRepository extends ExamRepository {
+        @Override
+        public String save(String itemId) {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Bulkhead;
+import hello.aop.exam.annotation.Hedge;
+import hello.aop.exam.annotation.Trace;
+import hello.aop.exam.aop.BulkheadAspect;
+import hello.aop.exam.aop.HedgeAspect;
+import hello.aop.exam.aop.TraceAspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TraceAspect 는 가장 안쪽 어드바이스라서 @Hedge, @Bulkhead(THREAD_POOL) 와 같이 쓰면 풀 스레드에서 실행된다.
+ * 그 스레드에는 호출 스레드의 MethodInvocation 이 없으므로, 없어도 트레이스가 남고 호출이 성공하는지 본다.
+ */
+public class TraceOffThreadTest {
+
+    @Test
+    void hedgePool() {
+        List<Long> threads = new CopyOnWriteArrayList<>();
+        PooledService proxy = proxy(threads);
+
+        assertThat(proxy.hedged("data")).isEqualTo("data");
+        assertThat(threads).hasSize(1);
+        assertThat(threads.get(0)).isNotEqualTo(Thread.currentThread().getId());
+    }
+
+    @Test
+    void threadPoolBulkhead() {
+        List<Long> threads = new CopyOnWriteArrayList<>();
+        PooledService proxy = proxy(threads);
+
+        assertThat(proxy.isolated("data")).isEqualTo("data");
+        assertThat(threads).hasSize(1);
+        assertThat(threads.get(0)).isNotEqualTo(Thread.currentThread().getId());
+    }
+
+    private PooledService proxy(List<Long> threads) {
+        TraceAspect traceAspect = new TraceAspect();
+        traceAspect.setTraceSink((span, args) -> threads.add(span.threadId()));
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new PooledService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new HedgeAspect());
+        factory.addAspect(new BulkheadAspect());
+        factory.addAspect(traceAspect);
+        return factory.getProxy();
+    }
+
+    static class PooledService {
+
+        @Trace(samplesPerSecond = 0)
+        @Hedge(delay = 1000) // 지연 기준이 고정이라 첫 호출부터 헤지 풀에서 실행된다
+        public String hedged(String itemId) {
+            return itemId;
+        }
+
+        @Trace(samplesPerSecond = 0)
+        @Bulkhead(mode = Bulkhead.Mode.THREAD_POOL, maxConcurrent = 2)
+        public String isolated(String itemId) {
+            return itemId;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Trace;
+import hello.aop.exam.aop.TraceAspect;
+import hello.aop.exam.trace.TraceSampler;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 샘플링 빈도가 다른 @Trace 메서드를 중첩해서 부른다.
+ * 샘플링은 최상위(outer)에서만 정해지므로, 남은 스팬의 부모는 항상 함께 남아야 한다. (부모 없는 자식이 없다)
+ * 안쪽(inner)에서 난 예외는 샘플링과 상관없이 남고, 이때 바깥 스팬도 같이 남는다.
+ */
+public class TraceSamplingTest {
+
+    private static final int FAIL_EVERY = 10;
+
+    @Test
+    void emittedParentsAreEmitted() throws Exception {
+        Set<Long> spanIds = ConcurrentHashMap.newKeySet();
+        Set<Long> parentIds = ConcurrentHashMap.newKeySet();
+        AtomicInteger emittedFailures = new AtomicInteger();
+        TraceAspect traceAspect = new TraceAspect();
+        traceAspect.setTraceSink((span, args) -> {
+            spanIds.add(span.spanId());
+            if (span.parentId() != 0) {
+                parentIds.add(span.parentId());
+            }
+            if (span.failed()) {
+                emittedFailures.incrementAndGet();
+            }
+        });
+
+        InnerService inner = proxy(new InnerService(), traceAspect);
+        OuterService outer = proxy(new OuterService(inner), traceAspect);
+
+        // 바깥 샘플러가 한 창(250ms) 이상 지나 실제로 트레이스를 빼기 시작할 때까지 부른다.
+        outer.call(false);
+        TraceSampler outerSampler = traceAspect.sampler(OuterService.class.getMethod("call", boolean.class));
+        int failures = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (int i = 1; outerSampler.skippedCount() <= 100 && System.nanoTime() < deadline; i++) {
+            boolean fail = i % FAIL_EVERY == 0;
+            if (fail) {
+                failures++;
+            }
+            outer.call(fail);
+        }
+
+        assertThat(outerSampler.skippedCount()).isGreaterThan(100); // 실제로 빠진 트레이스가 있다
+        assertThat(spanIds).containsAll(parentIds);
+        assertThat(emittedFailures.get()).isEqualTo(failures); // 예외는 하나도 빠지지 않는다
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, TraceAspect traceAspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(traceAspect);
+        return (T) factory.getProxy();
+    }
+
+    static class OuterService {
+
+        private final InnerService inner;
+
+        OuterService(InnerService inner) {
+            this.inner = inner;
+        }
+
+        @Trace(samplesPerSecond = 1)
+        public void call(boolean fail) {
+            inner.call(false);
+            try {
+                inner.call(fail);
+            } catch (IllegalStateException e) {
+                // 안쪽 예외는 삼킨다. (바깥 호출은 성공)
+            }
+        }
+    }
+
+    static class InnerService {
+
+        // 혼자서는 거의 다 남기는 설정. 바깥 트레이스 안에서는 바깥 결정을 따라야 한다.
+        @Trace(samplesPerSecond = 1_000_000)
+        public void call(boolean fail) {
+            if (fail) {
+                throw new IllegalStateException("예외 발생");
+            }
+        }
+    }
+}
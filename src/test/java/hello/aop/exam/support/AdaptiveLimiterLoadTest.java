@@ -0,0 +1,91 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.exception.LimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 과부하 상황의 goodput(마감 시간 안에 성공한 호출 수) 비교
+ *  - 저장소는 동시에 CAPACITY 개를 처리하고, 그 이상 몰리면 모두가 비례해서 느려진다. (프로세서 공유 모델)
+ *  - 클라이언트 CLIENTS 개가 쉬지 않고 호출하므로 저장소 처리량의 몇 배 부하가 걸린다.
+ *  - 제한이 없으면 모든 호출이 마감 시간을 넘겨 goodput 이 거의 0 이 되고,
+ *    AdaptiveLimiter 를 쓰면 넘치는 호출을 바로 버려서 저장소가 처리할 수 있는 만큼은 마감 안에 성공한다.
+ */
+@Slf4j
+class AdaptiveLimiterLoadTest {
+
+    private static final int CAPACITY = 8;
+    private static final long BASE_LATENCY_MS = 5;
+    private static final long DEADLINE_MS = 50;
+    private static final int CLIENTS = 200;
+    private static final long DURATION_MS = 1500;
+
+    @Test
+    void goodputUnderOverload() throws InterruptedException {
+        long without = run(null);
+        AdaptiveLimiter limiter = new AdaptiveLimiter("store", 20, 1, 200);
+        long with = run(limiter);
+
+        log.info("goodput without limiter={}/s, with limiter={}/s (limit={}, rejected={})",
+                without * 1000 / DURATION_MS, with * 1000 / DURATION_MS, limiter.limit(), limiter.rejectedCount());
+        assertThat(with).isGreaterThan(without * 2);
+        assertThat(limiter.limit()).isLessThan(CLIENTS);
+    }
+
+    private long run(AdaptiveLimiter limiter) throws InterruptedException {
+        AtomicInteger concurrent = new AtomicInteger();
+        LongAdder goodput = new LongAdder();
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+
+        for (int i = 0; i < CLIENTS; i++) {
+            Thread client = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        call(limiter, concurrent, goodput);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+        return goodput.sum();
+    }
+
+    private void call(AdaptiveLimiter limiter, AtomicInteger concurrent, LongAdder goodput) throws InterruptedException {
+        long start = System.nanoTime();
+        long permit = 0;
+        if (limiter != null) {
+            try {
+                permit = limiter.acquire();
+            } catch (LimitExceededException e) {
+                Thread.sleep(1); // 거절된 클라이언트는 잠깐 쉬고 다시 시도
+                return;
+            }
+        }
+        try {
+            int inFlight = concurrent.incrementAndGet();
+            Thread.sleep(BASE_LATENCY_MS * Math.max(CAPACITY, inFlight) / CAPACITY);
+        } finally {
+            concurrent.decrementAndGet();
+            if (limiter != null) {
+                limiter.release(permit, true);
+            }
+        }
+        if (System.nanoTime() - start <= TimeUnit.MILLISECONDS.toNanos(DEADLINE_MS)) {
+            goodput.increment();
+        }
+    }
+}
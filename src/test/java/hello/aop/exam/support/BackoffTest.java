@@ -0,0 +1,86 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.annotation.Retry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackoffTest {
+
+    private static final int SAMPLES = 1_000;
+
+    /**
+     * 지터가 없으면 delay * multiplier^(n-1) 그대로이고 maxDelay 에서 멈춘다.
+     */
+    @Test
+    void none() {
+        Backoff backoff = new Backoff(10, 2.0, 100, Retry.Jitter.NONE);
+
+        assertThat(backoff.nextDelay(1, 0)).isEqualTo(10);
+        assertThat(backoff.nextDelay(2, 10)).isEqualTo(20);
+        assertThat(backoff.nextDelay(3, 20)).isEqualTo(40);
+        assertThat(backoff.nextDelay(4, 40)).isEqualTo(80);
+        assertThat(backoff.nextDelay(5, 80)).isEqualTo(100); // 160 -> 상한
+        assertThat(backoff.nextDelay(6, 100)).isEqualTo(100);
+    }
+
+    @Test
+    void noDelay() {
+        for (Retry.Jitter jitter : Retry.Jitter.values()) {
+            assertThat(new Backoff(0, 2.0, 100, jitter).nextDelay(3, 0)).isZero();
+        }
+    }
+
+    /**
+     * FULL: 0 ~ 지터 없는 값 사이
+     */
+    @Test
+    void full() {
+        Backoff backoff = new Backoff(10, 2.0, 100, Retry.Jitter.FULL);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            assertThat(backoff.nextDelay(1, 0)).isBetween(0L, 10L);
+            assertThat(backoff.nextDelay(3, 0)).isBetween(0L, 40L);
+            assertThat(backoff.nextDelay(10, 0)).isBetween(0L, 100L);
+        }
+    }
+
+    /**
+     * DECORRELATED: delay ~ 직전 대기 시간 * 3 사이, maxDelay 를 넘지 않는다.
+     */
+    @Test
+    void decorrelated() {
+        Backoff backoff = new Backoff(10, 2.0, 100, Retry.Jitter.DECORRELATED);
+
+        long previous = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            assertThat(backoff.nextDelay(1, 0)).isEqualTo(10); // 첫 재시도는 범위가 delay ~ delay
+            assertThat(backoff.nextDelay(2, 20)).isBetween(10L, 60L);
+            assertThat(backoff.nextDelay(3, 50)).isBetween(10L, 100L);
+
+            long next = backoff.nextDelay(i + 1, previous);
+            assertThat(next).isBetween(10L, Math.min(100L, Math.max(10L, previous * 3)));
+            previous = next;
+        }
+    }
+
+    /**
+     * 재시도 횟수가 아주 크거나 상한이 Long.MAX_VALUE 여도 넘쳐서 음수가 되거나 예외가 나지 않는다.
+     */
+    @Test
+    void overflow() {
+        Backoff none = new Backoff(10, 2.0, 100, Retry.Jitter.NONE);
+        assertThat(none.nextDelay(Integer.MAX_VALUE, 100)).isEqualTo(100);
+
+        Backoff unbounded = new Backoff(1, 10.0, Long.MAX_VALUE, Retry.Jitter.NONE);
+        assertThat(unbounded.nextDelay(1_000, 0)).isEqualTo(Long.MAX_VALUE);
+
+        Backoff full = new Backoff(1, 10.0, Long.MAX_VALUE, Retry.Jitter.FULL);
+        Backoff decorrelated = new Backoff(1, 10.0, Long.MAX_VALUE, Retry.Jitter.DECORRELATED);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertThat(full.nextDelay(1_000, 0)).isNotNegative();
+            assertThat(decorrelated.nextDelay(1_000, Long.MAX_VALUE / 2)).isBetween(1L, Long.MAX_VALUE);
+            assertThat(decorrelated.nextDelay(1_000, Long.MAX_VALUE)).isBetween(1L, Long.MAX_VALUE);
+        }
+    }
+}
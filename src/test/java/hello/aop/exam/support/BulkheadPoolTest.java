@@ -0,0 +1,74 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.exception.BulkheadFullException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadPoolTest {
+
+    /**
+     * 자리 2개를 오래 잡고 있으면 다음 호출은 maxWait(10ms) 만큼 기다린 후 거절된다.
+     */
+    @Test
+    void semaphore() throws Exception {
+        SemaphoreBulkhead pool = new SemaphoreBulkhead("semaphore", 2, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = occupy(pool, 2, release);
+
+        assertThatThrownBy(() -> pool.execute(() -> "ok")).isInstanceOf(BulkheadFullException.class);
+        assertThat(pool.rejectedCount()).isEqualTo(1);
+        assertThat(pool.maxWaitNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+
+        finish(callers, release);
+        assertThat(pool.execute(() -> "ok")).isEqualTo("ok");
+    }
+
+    /**
+     * 스레드 2개가 일하고 대기열(1)도 차 있으면 다음 호출은 바로 거절된다.
+     * 대기 통계에는 대기열에서 자리를 기다린 세 번째 호출만 들어간다.
+     */
+    @Test
+    void threadPool() throws Exception {
+        ThreadPoolBulkhead pool = new ThreadPoolBulkhead("threadPool", 2, 0, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = occupy(pool, 3, release);
+        while (pool.queueSize() < 1) {
+            Thread.sleep(1);
+        }
+
+        assertThatThrownBy(() -> pool.execute(() -> "ok")).isInstanceOf(BulkheadFullException.class);
+        assertThat(pool.rejectedCount()).isEqualTo(1);
+
+        finish(callers, release);
+        assertThat(pool.waitedCount()).isEqualTo(1);
+        assertThat(pool.execute(() -> "ok")).isEqualTo("ok");
+        assertThat(pool.waitedCount()).isEqualTo(1); // 스레드가 비어 있으면 대기열을 거쳐도 기다린 것이 아니다
+    }
+
+    private ExecutorService occupy(BulkheadPool pool, int callerCount, CountDownLatch release) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(2);
+        ExecutorService callers = Executors.newFixedThreadPool(callerCount);
+        for (int i = 0; i < callerCount; i++) {
+            callers.submit(() -> pool.execute(() -> {
+                running.countDown();
+                release.await();
+                return "ok";
+            }));
+        }
+        assertThat(running.await(1, TimeUnit.SECONDS)).isTrue();
+        return callers;
+    }
+
+    private void finish(ExecutorService callers, CountDownLatch release) throws InterruptedException {
+        release.countDown();
+        callers.shutdown();
+        assertThat(callers.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+    }
+}
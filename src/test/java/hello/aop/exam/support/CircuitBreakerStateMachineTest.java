@@ -0,0 +1,79 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.exception.CallNotPermittedException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerStateMachineTest {
+
+    @Test
+    void stateTransition() throws InterruptedException {
+        CircuitBreakerStateMachine breaker = new CircuitBreakerStateMachine("test", 50, 4, 10_000, 50, 2);
+
+        // 최소 호출 수(4)를 채우고 실패율 50% 이상 -> OPEN
+        breaker.onSuccess(breaker.acquirePermission());
+        breaker.onFailure(breaker.acquirePermission());
+        breaker.onSuccess(breaker.acquirePermission());
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.CLOSED);
+        breaker.onFailure(breaker.acquirePermission());
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.OPEN);
+
+        assertThatThrownBy(breaker::acquirePermission).isInstanceOf(CallNotPermittedException.class);
+        assertThat(breaker.rejectedCount()).isEqualTo(1);
+
+        // openDuration 이 지나면 HALF_OPEN, 시험 호출 2번만 허용
+        Thread.sleep(60);
+        int first = breaker.acquirePermission();
+        int second = breaker.acquirePermission();
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.HALF_OPEN);
+        assertThatThrownBy(breaker::acquirePermission).isInstanceOf(CallNotPermittedException.class);
+
+        // 시험 호출이 모두 성공하면 CLOSED
+        breaker.onSuccess(first);
+        breaker.onSuccess(second);
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenFailure() throws InterruptedException {
+        CircuitBreakerStateMachine breaker = new CircuitBreakerStateMachine("test", 50, 1, 10_000, 50, 2);
+        breaker.onFailure(breaker.acquirePermission());
+        Thread.sleep(60);
+
+        breaker.onFailure(breaker.acquirePermission());
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.OPEN);
+    }
+
+    /**
+     * 반개방 상태에서는 시험 호출로 허용한 호출만 센다.
+     * 회로가 열리기 전에 들어온 호출이나 지난 회차의 시험 호출이 늦게 끝나도 회로를 닫거나 다시 열지 않는다.
+     */
+    @Test
+    void halfOpenCountsOnlyTrialCalls() throws InterruptedException {
+        CircuitBreakerStateMachine breaker = new CircuitBreakerStateMachine("test", 50, 1, 10_000, 50, 1);
+        int beforeOpen = breaker.acquirePermission();
+        assertThat(beforeOpen).isEqualTo(CircuitBreakerStateMachine.NOT_TRIAL);
+        breaker.onFailure(breaker.acquirePermission());
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.OPEN);
+
+        Thread.sleep(60);
+        int firstRound = breaker.acquirePermission();
+        breaker.onSuccess(beforeOpen); // 열리기 전에 들어온 호출
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.HALF_OPEN);
+
+        breaker.onFailure(firstRound); // 시험 호출 실패 -> 다시 OPEN
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.OPEN);
+
+        Thread.sleep(60);
+        int secondRound = breaker.acquirePermission();
+        assertThat(secondRound).isNotEqualTo(firstRound);
+        breaker.onSuccess(firstRound); // 지난 회차의 시험 호출
+        breaker.onFailure(beforeOpen);
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.HALF_OPEN);
+
+        breaker.onSuccess(secondRound);
+        assertThat(breaker.state()).isEqualTo(CircuitBreakerStateMachine.State.CLOSED);
+    }
+}
@@ -0,0 +1,44 @@
+package hello.aop.exam.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedTokenBucketsTest {
+
+    /**
+     * 토큰을 쓴 버킷은 닫을 수 없고, 가득 찬 버킷만 닫힌다. 닫힌 버킷은 더 토큰을 내주지 않는다.
+     */
+    @Test
+    void retire() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        long now = System.nanoTime();
+        assertThat(bucket.tryAcquire(now)).isTrue();
+        assertThat(bucket.tryRetire(now)).isFalse(); // 1초 뒤에야 다시 가득 찬다
+
+        TokenBucket idle = new TokenBucket(1, 1);
+        long later = System.nanoTime();
+        assertThat(idle.tryRetire(later)).isTrue();
+        assertThat(idle.isRetired()).isTrue();
+        assertThat(idle.tryAcquire(later)).isFalse();
+        assertThat(idle.tryRetire(later)).isFalse(); // 한 번만 닫힌다
+    }
+
+    /**
+     * 키 수가 maxKeys 에 닿으면 쉬고 있는 버킷을 지우고 새 키에 자리를 준다.
+     * 지워진 키가 다시 오면 가득 찬 새 버킷을 받는다.
+     */
+    @Test
+    void evictIdle() throws InterruptedException {
+        KeyedTokenBuckets buckets = new KeyedTokenBuckets(1000, 1, 1);
+        assertThat(buckets.tryAcquire("itemA")).isTrue();
+
+        Thread.sleep(10); // itemA 버킷이 다시 가득 찰 만큼 (1ms 에 토큰 1개)
+        assertThat(buckets.tryAcquire("itemB")).isTrue();
+        assertThat(buckets.evictedCount()).isEqualTo(1);
+        assertThat(buckets.size()).isEqualTo(1);
+
+        assertThat(buckets.tryAcquire("itemB")).isFalse(); // burst 1
+        assertThat(buckets.rejectedCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,36 @@
+package hello.aop.exam.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+
+    /**
+     * 처음 잔액(capacity)을 다 쓰면 재시도가 거절되고, 성공이 쌓인 만큼만 다시 허용된다.
+     */
+    @Test
+    void budget() {
+        RetryBudget budget = new RetryBudget(0.2, 2);
+
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isFalse();
+
+        for (int i = 0; i < 5; i++) {
+            budget.onSuccess(); // 성공 5번 = 토큰 1개
+        }
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isFalse();
+        assertThat(budget.exhaustedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void capacity() {
+        RetryBudget budget = new RetryBudget(1.0, 3);
+        for (int i = 0; i < 100; i++) {
+            budget.onSuccess();
+        }
+        assertThat(budget.available()).isEqualTo(3.0);
+    }
+}
@@ -0,0 +1,46 @@
+package hello.aop.exam.support;
+
+import hello.aop.exam.exception.BulkheadFullException;
+import hello.aop.exam.exception.CallNotPermittedException;
+import hello.aop.exam.exception.LimitExceededException;
+import hello.aop.exam.exception.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryClassifierTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void classify() {
+        RetryClassifier classifier = new RetryClassifier(
+                new Class[]{RuntimeException.class}, new Class[]{IllegalArgumentException.class});
+
+        assertThat(classifier.isRetryable(new IllegalStateException())).isTrue();
+        assertThat(classifier.isRetryable(new NumberFormatException())).isFalse(); // IllegalArgumentException 의 자식
+        assertThat(classifier.isRetryable(new Exception())).isFalse(); // retryOn 에 없음
+        assertThat(classifier.isRetryable(new CallNotPermittedException("open"))).isFalse();
+    }
+
+    /**
+     * 부하를 덜어내려는 거절은 retryOn 에 RuntimeException 이 있어도 재시도하지 않는다.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void rejections() {
+        RetryClassifier classifier = new RetryClassifier(new Class[]{RuntimeException.class}, new Class[0]);
+
+        assertThat(classifier.isRetryable(new CallNotPermittedException("open"))).isFalse();
+        assertThat(classifier.isRetryable(new BulkheadFullException("full"))).isFalse();
+        assertThat(classifier.isRetryable(new LimitExceededException("limit"))).isFalse();
+        assertThat(classifier.isRetryable(new RateLimitExceededException("rate"))).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void avoided() {
+        RetryClassifier classifier = new RetryClassifier(new Class[]{RuntimeException.class}, new Class[0]);
+        classifier.recordAvoided(3);
+        assertThat(classifier.avoidedRetries()).isEqualTo(3);
+    }
+}
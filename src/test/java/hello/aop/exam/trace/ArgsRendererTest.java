@@ -0,0 +1,126 @@
+package hello.aop.exam.trace;
+
+import hello.aop.exam.annotation.Printable;
+import hello.aop.exam.annotation.Sensitive;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArgsRendererTest {
+
+    @Test
+    void render() throws NoSuchMethodException {
+        ArgsRenderer renderer = ArgsRenderer.of(Target.class.getDeclaredMethod("call",
+                String.class, long.class, Integer.class, TimeUnit.class, byte[].class, List.class, Map.class, Object.class));
+
+        String args = renderer.format(new Object[]{"item", -42L, null, TimeUnit.SECONDS, new byte[1024],
+                List.of(1, 2, 3), Map.of("a", 1), new StringBuilder("sb")});
+
+        assertThat(args).isEqualTo("[item, -42, null, SECONDS, byte[1024], List(3), Map(1), sb]");
+    }
+
+    @Test
+    void redact() throws NoSuchMethodException {
+        ArgsRenderer renderer = ArgsRenderer.of(Target.class.getDeclaredMethod("login", String.class, String.class));
+
+        assertThat(renderer.format(new Object[]{"user", "secret"})).isEqualTo("[user, ****]");
+    }
+
+    /**
+     * 큰 인수도 버퍼 크기에서 잘리고, 잘렸다는 표시(…)가 남는다.
+     */
+    @Test
+    void truncate() throws NoSuchMethodException {
+        ArgsRenderer renderer = ArgsRenderer.of(Target.class.getDeclaredMethod("login", String.class, String.class));
+        ArgsBuffer buffer = new ArgsBuffer(16);
+
+        renderer.render(new Object[]{"x".repeat(10_000), "secret"}, buffer);
+        assertThat(buffer.length()).isEqualTo(16);
+        assertThat(buffer.isTruncated()).isTrue();
+        assertThat(buffer.toString()).isEqualTo("x".repeat(15) + "…");
+
+        // 재사용
+        buffer.reset();
+        renderer.render(new Object[]{"a", "b"}, buffer);
+        assertThat(buffer.toString()).isEqualTo("a, ****");
+    }
+
+    /**
+     * 모르는 타입은 toString() 을 부르지 않고 "타입이름@해시" 만 남긴다.
+     * JDK 의 짧은 타입(BigDecimal 등)과 @Printable 은 toString() 을 쓴다.
+     */
+    @Test
+    void toStringOnlyWhenCheap() throws NoSuchMethodException {
+        ArgsRenderer renderer = ArgsRenderer.of(Target.class.getDeclaredMethod("report", Object.class, Object.class, Object.class, Object.class));
+        Payload payload = new Payload();
+
+        String args = renderer.format(new Object[]{payload, new BigDecimal("12.50"), new Label(), new Payload()});
+
+        assertThat(args).startsWith("[Payload@" + Integer.toHexString(System.identityHashCode(payload)) + ", 12.50, label, Payload@");
+        assertThat(Payload.toStringCalls).isZero();
+    }
+
+    @Test
+    void printableParameter() throws NoSuchMethodException {
+        ArgsRenderer renderer = ArgsRenderer.of(Target.class.getDeclaredMethod("printable", Object.class));
+
+        assertThat(renderer.format(new Object[]{new Object() {
+            @Override
+            public String toString() {
+                return "opted-in";
+            }
+        }})).isEqualTo("[opted-in]");
+    }
+
+    @Test
+    void numbers() {
+        ArgsBuffer buffer = new ArgsBuffer(64);
+        buffer.append(0L).append(' ').append(Long.MAX_VALUE).append(' ').append(Long.MIN_VALUE);
+        assertThat(buffer.toString()).isEqualTo("0 9223372036854775807 -9223372036854775808");
+
+        buffer.reset();
+        buffer.appendHex(0).append(' ').appendHex(0xcafe).append(' ').appendHex(-1);
+        assertThat(buffer.toString()).isEqualTo("0 cafe ffffffff");
+    }
+
+    static class Target {
+
+        void call(String item, long amount, Integer count, TimeUnit unit, byte[] payload,
+                  List<Integer> ids, Map<String, Integer> options, Object extra) {
+        }
+
+        void login(String user, @Sensitive String password) {
+        }
+
+        void report(Object a, Object b, Object c, Object d) {
+        }
+
+        void printable(@Printable Object value) {
+        }
+    }
+
+    static class Payload {
+
+        static int toStringCalls;
+
+        @Override
+        public String toString() {
+            toStringCalls++;
+            return "x".repeat(1_000_000);
+        }
+    }
+
+    @Printable
+    static class Label {
+
+        @Override
+        public String toString() {
+            return "label";
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package hello.aop.exam.trace;
+
+import hello.aop.exam.annotation.Printable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class AsyncTraceSinkTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * BLOCK 정책: 여러 스레드가 동시에 넣어도 버리는 기록 없이 전부 파일에 써진다.
+     */
+    @Test
+    void block() throws Exception {
+        Path file = dir.resolve("trace.log");
+        int signatureId = SignatureRegistry.getInstance().id(AsyncTraceSinkTest.class.getDeclaredMethod("block"));
+        int threads = 4;
+        int perThread = 5_000;
+
+        try (AsyncTraceSink sink = new AsyncTraceSink(new TextTraceWriter(file), 64, TraceRingBuffer.OverflowPolicy.BLOCK, 32)) {
+            record(sink, signatureId, threads, perThread);
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(threads * perThread);
+        assertThat(lines.get(0)).containsPattern("AsyncTraceSinkTest.block args=\\[item, \\d+\\]");
+    }
+
+    /**
+     * DROP 정책: 소비자가 못 따라가면 호출 스레드는 기다리지 않고 버린다. 버린 수 + 쓴 수 = 넣은 수
+     */
+    @Test
+    void drop() throws Exception {
+        Path file = dir.resolve("trace.log");
+        int signatureId = SignatureRegistry.getInstance().id(AsyncTraceSinkTest.class.getDeclaredMethod("drop"));
+        int threads = 4;
+        int perThread = 50_000;
+
+        AsyncTraceSink sink = new AsyncTraceSink(new TextTraceWriter(file), 16, TraceRingBuffer.OverflowPolicy.DROP, 8);
+        try {
+            record(sink, signatureId, threads, perThread);
+        } finally {
+            sink.close();
+        }
+
+        assertThat(sink.droppedCount()).isPositive();
+        assertThat(sink.droppedCount() + sink.writtenCount()).isEqualTo(threads * perThread);
+        assertThat(Files.readAllLines(file)).hasSize((int) sink.writtenCount());
+    }
+
+    /**
+     * 인수의 toString() 이 예외를 던져도 칸은 발행되고 자리표시만 남는다. (발행되지 않으면 BLOCK 에서 다음 호출들이 영원히 기다린다)
+     */
+    @Test
+    void failingToString() throws Exception {
+        Path file = dir.resolve("trace.log");
+        int signatureId = SignatureRegistry.getInstance().id(AsyncTraceSinkTest.class.getDeclaredMethod("printable", Object.class));
+        Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("toString 실패");
+            }
+        };
+
+        try (AsyncTraceSink sink = new AsyncTraceSink(new TextTraceWriter(file), 4, TraceRingBuffer.OverflowPolicy.BLOCK, 2)) {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < 100; i++) {
+                    Span span = TraceContext.start(signatureId, System.nanoTime());
+                    TraceContext.end(span, span.startNanos() + 1_000, false);
+                    sink.record(span, new Object[]{i == 0 ? broken : "ok"});
+                }
+            });
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(100);
+        assertThat(lines.get(0)).contains("args=[<toString failed: IllegalStateException>]");
+        assertThat(lines.get(99)).contains("args=[ok]");
+    }
+
+    void printable(@Printable Object value) {
+    }
+
+    private void record(TraceSink sink, int signatureId, int threads, int perThread) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    Span span = TraceContext.start(signatureId, System.nanoTime());
+                    TraceContext.end(span, span.startNanos() + 1_000, false);
+                    sink.record(span, new Object[]{"item", i});
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,91 @@
+package hello.aop.exam.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentTraceWriterTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * request -> save 를 1,000번 기록하고 다시 읽는다.
+     * 세그먼트 하나에 100개씩 들어가므로 20개가 생기고, 최근 5개(500개)만 남는다.
+     */
+    @Test
+    void writeAndRead() throws Exception {
+        int request = SignatureRegistry.getInstance().id(SegmentTraceWriterTest.class.getDeclaredMethod("writeAndRead"));
+        int save = SignatureRegistry.getInstance().id(SegmentTraceWriterTest.class.getDeclaredMethod("aggregate"));
+        long segmentSize = SegmentTraceWriter.HEADER_SIZE + 100L * SegmentTraceWriter.RECORD_SIZE;
+
+        SegmentTraceWriter writer = new SegmentTraceWriter(dir, segmentSize, 5);
+        try (AsyncTraceSink sink = new AsyncTraceSink(writer, 64, TraceRingBuffer.OverflowPolicy.BLOCK, 32)) {
+            for (int i = 0; i < 500; i++) {
+                Span parent = TraceContext.start(request, 0);
+                Span child = TraceContext.start(save, 10);
+                TraceContext.end(child, 40, i % 10 == 0);
+                sink.record(child, new Object[]{"item"});
+                TraceContext.end(parent, 100, false);
+                sink.record(parent, new Object[]{"item"});
+            }
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.filter(path -> path.toString().endsWith(".seg")).count()).isEqualTo(5);
+        }
+
+        TraceLogReader reader = new TraceLogReader(dir);
+        assertThat(reader.runs()).containsExactly(writer.run());
+        TraceDictionary dictionary = reader.dictionary(writer.run());
+
+        List<String> names = new ArrayList<>();
+        long[] failed = new long[1];
+        long count = reader.read(writer.run(), record -> {
+            names.add(dictionary.name(record.signatureId()));
+            failed[0] += record.failed() ? 1 : 0;
+            if (record.parentId() != 0) {
+                assertThat(record.durationNanos()).isEqualTo(30);
+                assertThat(dictionary.appendPath(new StringBuilder(), record.stackId(), ';').toString())
+                        .isEqualTo("SegmentTraceWriterTest.writeAndRead;SegmentTraceWriterTest.aggregate");
+            } else {
+                assertThat(record.selfNanos()).isEqualTo(70);
+            }
+        });
+
+        assertThat(count).isEqualTo(500);
+        assertThat(names).containsOnly("SegmentTraceWriterTest.writeAndRead", "SegmentTraceWriterTest.aggregate");
+        assertThat(failed[0]).isEqualTo(25);
+    }
+
+    @Test
+    void aggregate() throws Exception {
+        int save = SignatureRegistry.getInstance().id(SegmentTraceWriterTest.class.getDeclaredMethod("aggregate"));
+        SegmentTraceWriter writer = new SegmentTraceWriter(dir, 1 << 20, 4);
+        try (AsyncTraceSink sink = new AsyncTraceSink(writer, 64, TraceRingBuffer.OverflowPolicy.BLOCK, 32)) {
+            for (int i = 1; i <= 10; i++) {
+                Span span = TraceContext.start(save, 0);
+                TraceContext.end(span, i * 1000L, i == 10);
+                sink.record(span, new Object[0]);
+            }
+        }
+
+        TraceLogReader reader = new TraceLogReader(dir);
+        TraceDictionary dictionary = reader.dictionary(writer.run());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TraceLogReader.aggregate(reader, writer.run(), dictionary,
+                new TraceLogReader.Filter(dictionary, "aggregate", 0, 0, false), new PrintStream(out, true));
+
+        // count=10, errors=1, total=55us, avg=5us, max=10us, self=55us
+        assertThat(out.toString()).containsPattern("SegmentTraceWriterTest.aggregate\\s+10\\s+1\\s+55\\s+5\\s+10\\s+55");
+    }
+}
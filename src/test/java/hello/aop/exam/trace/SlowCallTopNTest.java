@@ -0,0 +1,70 @@
+package hello.aop.exam.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowCallTopNTest {
+
+    @Test
+    void keepsSlowest() {
+        SlowCallTopN topN = new SlowCallTopN(3, 60_000);
+        long now = System.currentTimeMillis();
+        for (long duration : new long[]{5, 1, 9, 3, 7, 2}) {
+            topN.offer(new SlowCall("save", duration, now, "[]", false));
+        }
+
+        assertThat(topN.snapshot()).extracting(SlowCall::durationNanos).containsExactly(9L, 7L, 5L);
+        assertThat(topN.offer(new SlowCall("save", 4, now, "[]", false))).isFalse();
+    }
+
+    /**
+     * 오래된 호출은 더 빠른 최근 호출에게 자리를 내준다.
+     */
+    @Test
+    void expires() {
+        SlowCallTopN topN = new SlowCallTopN(2, 1_000);
+        long now = System.currentTimeMillis();
+        topN.offer(new SlowCall("save", 100, now - 5_000, "[old]", false));
+        topN.offer(new SlowCall("save", 90, now - 5_000, "[old]", false));
+
+        assertThat(topN.offer(new SlowCall("save", 1, now, "[new]", false))).isTrue();
+        assertThat(topN.snapshot()).extracting(SlowCall::args).containsExactly("[new]");
+    }
+
+    /**
+     * 여러 스레드가 동시에 넣어도 전체에서 가장 느린 N개가 남는다.
+     */
+    @Test
+    void concurrent() throws InterruptedException {
+        SlowCallTopN topN = new SlowCallTopN(5, 60_000);
+        long now = System.currentTimeMillis();
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10_000; i++) {
+                    topN.offer(new SlowCall("save", (long) i * threads + offset, now, "[]", false));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        List<Long> durations = topN.snapshot().stream().map(SlowCall::durationNanos).collect(Collectors.toList());
+        long max = 10_000L * threads - 1;
+        assertThat(durations).containsExactly(max, max - 1, max - 2, max - 3, max - 4);
+    }
+}
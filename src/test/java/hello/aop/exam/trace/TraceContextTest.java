@@ -0,0 +1,60 @@
+package hello.aop.exam.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceContextTest {
+
+    /**
+     * request -> save, save 두 번
+     * 자식은 부모 id 와 traceId 를 이어받고, 부모의 self 시간은 자식 시간을 뺀 값이 된다.
+     */
+    @Test
+    void nested() {
+        Span request = TraceContext.start(1, 0);
+        Span save1 = TraceContext.start(2, 10);
+        assertThat(TraceContext.current()).isSameAs(save1);
+        TraceContext.end(save1, 40, false);
+        Span save2 = TraceContext.start(2, 50);
+        TraceContext.end(save2, 70, true);
+        assertThat(TraceContext.current()).isSameAs(request);
+        TraceContext.end(request, 100, false);
+
+        assertThat(TraceContext.current()).isNull();
+        assertThat(request.parentId()).isZero();
+        assertThat(request.traceId()).isEqualTo(request.spanId());
+        assertThat(save1.parentId()).isEqualTo(request.spanId());
+        assertThat(save1.traceId()).isEqualTo(request.traceId());
+        assertThat(save1.spanId()).isNotEqualTo(save2.spanId());
+        assertThat(save2.failed()).isTrue();
+        assertThat(save1.depth()).isEqualTo(1);
+
+        assertThat(request.durationNanos()).isEqualTo(100);
+        assertThat(request.selfNanos()).isEqualTo(100 - 30 - 20);
+    }
+
+    /**
+     * 같은 호출 경로는 같은 stackId, 부모를 따라 올라가면 경로가 복원된다.
+     */
+    @Test
+    void callPath() {
+        CallPathRegistry paths = CallPathRegistry.getInstance();
+
+        Span root = TraceContext.start(11, 0);
+        Span child1 = TraceContext.start(12, 1);
+        TraceContext.end(child1, 2, false);
+        Span child2 = TraceContext.start(12, 3);
+        TraceContext.end(child2, 4, false);
+        TraceContext.end(root, 5, false);
+
+        Span other = TraceContext.start(12, 6); // 최상위에서 바로 부른 12 는 다른 경로
+        TraceContext.end(other, 7, false);
+
+        assertThat(child1.stackId()).isEqualTo(child2.stackId());
+        assertThat(other.stackId()).isNotEqualTo(child1.stackId());
+        assertThat(paths.signature(child1.stackId())).isEqualTo(12);
+        assertThat(paths.parent(child1.stackId())).isEqualTo(root.stackId());
+        assertThat(paths.parent(root.stackId())).isEqualTo(CallPathRegistry.ROOT);
+    }
+}
@@ -0,0 +1,96 @@
+package hello.aop.exam.trace;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceExecutorsTest {
+
+    ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 다른 스레드에서 시작한 스팬도 제출한 스레드의 스팬을 부모로 갖고, 작업이 끝나면 풀 스레드의 컨텍스트는 원래대로 돌아간다.
+     */
+    @Test
+    void executorService() throws Exception {
+        ExecutorService traced = TraceExecutors.wrap(pool);
+        Span request = TraceContext.start(1, System.nanoTime());
+
+        List<Callable<Span>> fanOut = IntStream.range(0, 4)
+                .mapToObj(i -> (Callable<Span>) () -> {
+                    Span child = TraceContext.start(2, System.nanoTime());
+                    TraceContext.end(child, System.nanoTime(), false);
+                    return child;
+                })
+                .collect(Collectors.toList());
+        List<Span> children = traced.invokeAll(fanOut).stream().map(TraceExecutorsTest::get).collect(Collectors.toList());
+        TraceContext.end(request, System.nanoTime(), false);
+
+        assertThat(children).allSatisfy(child -> {
+            assertThat(child.parentId()).isEqualTo(request.spanId());
+            assertThat(child.traceId()).isEqualTo(request.traceId());
+        });
+        // 다른 스레드의 자식 시간은 부모의 self 시간에서 빼지 않는다.
+        assertThat(request.selfNanos()).isEqualTo(request.durationNanos());
+        assertThat(pool.submit(TraceContext::current).get()).isNull();
+    }
+
+    /**
+     * 스팬이 없을 때는 작업을 감싸지 않는다.
+     */
+    @Test
+    void noContext() {
+        Runnable task = () -> {
+        };
+        assertThat(TraceExecutors.wrap(task)).isSameAs(task);
+        assertThat(TraceExecutors.bind(pool)).isSameAs(pool);
+    }
+
+    /**
+     * thenApplyAsync 는 앞 단계를 끝낸 스레드가 실행기를 부르므로, 체인을 만들 때 bind 한 실행기를 넘긴다.
+     */
+    @Test
+    void completableFuture() throws Exception {
+        Span request = TraceContext.start(1, System.nanoTime());
+        CompletableFuture<Span> future = TraceExecutors.supplyAsync(TraceContext::current)
+                .thenApplyAsync(first -> {
+                    assertThat(first).isSameAs(request);
+                    return TraceContext.current();
+                }, TraceExecutors.bind(pool));
+        TraceContext.end(request, System.nanoTime(), false);
+
+        assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(request);
+        assertThat(TraceContext.current()).isNull();
+    }
+
+    private static <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package hello.aop.exam.trace;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceExporterTest {
+
+    @TempDir
+    Path dir;
+
+    TraceLogReader reader;
+    String run;
+
+    /**
+     * request(100us) -> save(30us), save(20us 예외) 를 3번 기록한다.
+     */
+    @BeforeEach
+    void record() throws Exception {
+        int request = SignatureRegistry.getInstance().id(TraceExporterTest.class.getDeclaredMethod("record"));
+        int save = SignatureRegistry.getInstance().id(TraceExporterTest.class.getDeclaredMethod("collapsed"));
+
+        SegmentTraceWriter writer = new SegmentTraceWriter(dir, 1 << 20, 4);
+        try (AsyncTraceSink sink = new AsyncTraceSink(writer, 64, TraceRingBuffer.OverflowPolicy.BLOCK, 32)) {
+            for (int i = 0; i < 3; i++) {
+                long base = i * 1_000_000L;
+                Span parent = TraceContext.start(request, base);
+                Span child1 = TraceContext.start(save, base + 10_000);
+                TraceContext.end(child1, base + 40_000, false);
+                sink.record(child1, new Object[0]);
+                Span child2 = TraceContext.start(save, base + 50_000);
+                TraceContext.end(child2, base + 70_000, true);
+                sink.record(child2, new Object[0]);
+                TraceContext.end(parent, base + 100_000, false);
+                sink.record(parent, new Object[0]);
+            }
+        }
+        reader = new TraceLogReader(dir);
+        run = writer.run();
+    }
+
+    @Test
+    void collapsed() throws Exception {
+        StringWriter out = new StringWriter();
+        TraceExporter.writeCollapsed(reader, run, out);
+
+        List<String> lines = Arrays.asList(out.toString().split("\n"));
+        assertThat(lines).containsExactlyInAnyOrder(
+                "TraceExporterTest.record 150",                          // self 50us x 3
+                "TraceExporterTest.record;TraceExporterTest.collapsed 150"); // (30 + 20)us x 3
+    }
+
+    @Test
+    void chrome() throws Exception {
+        StringWriter out = new StringWriter();
+        TraceExporter.writeChromeTrace(reader, run, out);
+        String json = out.toString();
+
+        assertThat(JsonPath.<Integer>read(json, "$.traceEvents.length()")).isEqualTo(9);
+        assertThat(JsonPath.<String>read(json, "$.traceEvents[0].name")).isEqualTo("TraceExporterTest.collapsed");
+        assertThat(JsonPath.<String>read(json, "$.traceEvents[0].ph")).isEqualTo("X");
+        assertThat(JsonPath.<Double>read(json, "$.traceEvents[0].dur")).isEqualTo(30.0);
+        assertThat(JsonPath.<Boolean>read(json, "$.traceEvents[1].args.error")).isTrue();
+        assertThat(JsonPath.<Integer>read(json, "$.traceEvents[2].args.selfUs")).isEqualTo(50);
+    }
+}
@@ -0,0 +1,58 @@
+package hello.aop.exam.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceSamplerTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 초당 10,000번 불리는 메서드를 초당 100개 목표로 샘플링하면 1% 근처만 남는다.
+     */
+    @Test
+    void hot() {
+        TraceSampler sampler = new TraceSampler(100, 0);
+        int kept = 0;
+        long now = 0;
+        for (int second = 0; second < 5; second++) {
+            kept = 0;
+            for (int i = 0; i < 10_000; i++) {
+                now += 100_000; // 0.1ms 마다 호출
+                if (sampler.sample(now)) {
+                    kept++;
+                }
+            }
+        }
+
+        assertThat(sampler.estimatedRate()).isBetween(9_000.0, 11_000.0);
+        assertThat(kept).isBetween(50, 200); // 마지막 1초 동안 남긴 수
+        assertThat(sampler.skippedCount()).isPositive();
+    }
+
+    /**
+     * 목표보다 드문 메서드는 전부 남는다.
+     */
+    @Test
+    void cold() {
+        TraceSampler sampler = new TraceSampler(100, 0);
+        long now = 0;
+        for (int i = 0; i < 1_000; i++) {
+            now += 20 * MILLI; // 초당 50번
+            assertThat(sampler.sample(now)).isTrue();
+        }
+        assertThat(sampler.probability()).isEqualTo(1.0);
+        assertThat(sampler.skippedCount()).isZero();
+    }
+
+    @Test
+    void disabled() {
+        TraceSampler sampler = new TraceSampler(0, 0);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(sampler.sample(i)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package hello.aop.index;
+
+import hello.aop.exam.ExamRepository;
+import hello.aop.exam.aop.AdaptiveLimitAspect;
+import hello.aop.order.OrderRepository;
+import hello.aop.order.OrderService;
+import hello.aop.order.aop.AspectV1;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * aop.index.enabled=true 면 인덱스가 아는 클래스는 인덱스대로만 프록시가 만들어진다.
+ * 여기서는 OrderRepository 를 "어드바이저 없음" 으로 인덱싱해 두었으므로, AspectV1 포인트컷에 걸리는데도 프록시가 아니다.
+ */
+@SpringBootTest
+@Import(AspectV1.class)
+public class AdvisedMethodIndexTest {
+
+    static final String ADVISOR = AspectV1.class.getName() + "#doLog(org.aspectj.lang.ProceedingJoinPoint)";
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void indexProperties(DynamicPropertyRegistry registry) throws IOException {
+        AdvisedMethodIndex index = new AdvisedMethodIndexer(AdvisedMethodIndexTest.class.getClassLoader())
+                .index(List.of(OrderService.class.getName(), AspectV1.class.getName()));
+        index.addClass(OrderRepository.class.getName());
+
+        Path file = dir.resolve("advised-methods.idx");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            index.write(out);
+        }
+        registry.add("aop.index.enabled", () -> "true");
+        registry.add("aop.index.location", () -> "file:" + file.toAbsolutePath());
+    }
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Test
+    void indexer() {
+        AdvisedMethodIndex index = new AdvisedMethodIndexer(getClass().getClassLoader())
+                .index(List.of(OrderService.class.getName(), OrderRepository.class.getName(), AspectV1.class.getName()));
+
+        assertThat(index.containsAdvisor(ADVISOR)).isTrue();
+        assertThat(index.containsClass(AspectV1.class.getName())).isFalse();
+        assertThat(index.advisedMethods(OrderService.class.getName(), ADVISOR)).contains("orderItem(java.lang.String)");
+        assertThat(index.advisedMethods(OrderRepository.class.getName(), ADVISOR)).contains("save(java.lang.String)");
+    }
+
+    @Test
+    void readWrite() throws IOException {
+        Path file = dir.resolve("advised-methods.idx");
+        AdvisedMethodIndex index = AdvisedMethodIndex.read(new FileSystemResource(file));
+
+        assertThat(index.classCount()).isEqualTo(2);
+        assertThat(index.advisedMethods(OrderService.class.getName(), ADVISOR)).contains("orderItem(java.lang.String)");
+        assertThat(index.advisedMethods(OrderRepository.class.getName(), ADVISOR)).isEmpty();
+    }
+
+    @Test
+    void proxyCreator() {
+        assertThat(context.getBean(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME))
+                .isInstanceOf(IndexedAspectJAutoProxyCreator.class);
+        assertThat(AopUtils.isAopProxy(orderService)).isTrue();
+        assertThat(AopUtils.isAopProxy(orderRepository)).isFalse();
+
+        orderService.orderItem("itemA");
+    }
+
+    /**
+     * bean() 포인트컷은 빌드 타임에 판단할 수 없으므로 인덱스에 넣지 않는다.
+     * 인덱스가 ExamRepository 를 알고 있어도 AdaptiveLimitAspect 는 런타임에 원래대로 매칭되어 프록시가 만들어진다.
+     */
+    @Test
+    void beanPointcut() throws IOException {
+        String limitAdvisor = AdaptiveLimitAspect.class.getName() + "#doLimit(org.aspectj.lang.ProceedingJoinPoint)";
+        AdvisedMethodIndex index = new AdvisedMethodIndexer(getClass().getClassLoader())
+                .index(List.of(ExamRepository.class.getName(), AdaptiveLimitAspect.class.getName()));
+        assertThat(index.containsClass(ExamRepository.class.getName())).isTrue();
+        assertThat(index.containsAdvisor(limitAdvisor)).isFalse();
+
+        Path file = dir.resolve("bean-pointcut.idx");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            index.write(out);
+        }
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.setEnvironment(new MockEnvironment()
+                    .withProperty("aop.index.enabled", "true")
+                    .withProperty("aop.index.location", "file:" + file.toAbsolutePath()));
+            AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+            AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+            context.register(AdvisedMethodIndexConfig.class, AdaptiveLimitAspect.class, ExamRepository.class);
+            context.refresh();
+
+            assertThat(context.getBean(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME))
+                    .isInstanceOf(IndexedAspectJAutoProxyCreator.class);
+            ExamRepository examRepository = context.getBean(ExamRepository.class);
+            assertThat(AopUtils.isAopProxy(examRepository)).isTrue();
+            assertThat(((Advised) examRepository).getAdvisors())
+                    .anyMatch(advisor -> limitAdvisor.equals(AdvisedMethodIndex.advisorKey(advisor)));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package hello.aop.internalcall;
+
+import hello.aop.exam.annotation.SelfProxy;
+import hello.aop.exam.support.SelfProxyBeanPostProcessor;
+import hello.aop.internalcall.aop.CallLogAspect;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@Import(CallLogAspect.class)
+@SpringBootTest
+@ExtendWith(OutputCaptureExtension.class)
+class CallServiceV4Test {
+
+    @Autowired
+    CallServiceV4 callServiceV4;
+
+    /**
+     * 프록시와 내부 호출 문제 -> 대안4: @SelfProxy
+     * external() 안에서 부른 internal() 도 프록시를 거쳐서 CallLogAspect 가 적용된다.
+     */
+    @Test
+    void external(CapturedOutput output) {
+        assertThat(AopUtils.isAopProxy(callServiceV4)).isTrue();
+        Object target = AopProxyUtils.getSingletonTarget(callServiceV4);
+        assertThat(ReflectionTestUtils.getField(target, "self")).isSameAs(callServiceV4); // 실제 객체에 프록시가 들어가 있다
+
+        callServiceV4.external();
+
+        assertThat(output).contains("aop=void hello.aop.internalcall.CallServiceV4.internal()");
+    }
+
+    /**
+     * 순환 참조를 허용하지 않는 컨테이너에서도 동작한다. (V1 은 여기서 실패한다)
+     */
+    @Test
+    void withoutCircularReferences(CapturedOutput output) {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.setAllowCircularReferences(false);
+            AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+            AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+            context.register(CallLogAspect.class, SelfProxyBeanPostProcessor.class, CallServiceV4.class);
+            context.refresh();
+
+            context.getBean(CallServiceV4.class).external();
+        }
+
+        assertThat(output).contains("aop=void hello.aop.internalcall.CallServiceV4.internal()");
+    }
+
+    /**
+     * 순환 참조 중에 다른 빈이 먼저 가져가면(early reference) 프록시는 그때 미리 만들어지고,
+     * 후처리기에는 실제 객체가 넘어온다. 그래도 self 에는 컨테이너가 노출하는 프록시가 들어가야 한다.
+     */
+    @Test
+    void earlyReference() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+            AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+            context.register(CallLogAspect.class, SelfProxyBeanPostProcessor.class, CircularService.class, CircularPartner.class);
+            context.refresh();
+
+            CircularService service = context.getBean(CircularService.class);
+            assertThat(AopUtils.isAopProxy(service)).isTrue();
+            assertThat(context.getBean(CircularPartner.class).service()).isSameAs(service); // 미리 노출된 프록시
+            CircularService target = (CircularService) AopProxyUtils.getSingletonTarget(service);
+            assertThat(target.self).isSameAs(service);
+        }
+    }
+
+    /**
+     * 부모의 @SelfProxy 메서드를 재정의해도 주입은 한 번만 한다.
+     */
+    @Test
+    void overriddenSetterOnce() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+            AopConfigUtils.forceAutoProxyCreatorToUseClassProxying(context);
+            context.register(CallLogAspect.class, SelfProxyBeanPostProcessor.class, OverridingService.class);
+            context.refresh();
+
+            OverridingService service = context.getBean(OverridingService.class);
+            OverridingService target = (OverridingService) AopProxyUtils.getSingletonTarget(service);
+            assertThat(target.injected).isEqualTo(1);
+            assertThat(target.self).isSameAs(service);
+        }
+    }
+
+    static class CircularService {
+
+        @SelfProxy
+        CircularService self;
+
+        @Autowired
+        CircularPartner partner; // CircularPartner 가 이 빈을 먼저 가져가게 만든다
+
+        public void call() {
+        }
+    }
+
+    static class CircularPartner {
+
+        @Autowired
+        CircularService service;
+
+        public CircularService service() {
+            return service;
+        }
+    }
+
+    static class BaseService {
+
+        BaseService self;
+        int injected;
+
+        @SelfProxy
+        public void setSelf(BaseService self) {
+            this.self = self;
+            injected++;
+        }
+    }
+
+    static class OverridingService extends BaseService {
+
+        @Override
+        @SelfProxy
+        public void setSelf(BaseService self) {
+            super.setSelf(self);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package hello.aop.weaving;
+
+import hello.aop.exam.annotation.Retry;
+import hello.aop.exam.annotation.Trace;
+import hello.aop.internalcall.CallServiceV0;
+import hello.aop.internalcall.aop.CallLogAspect;
+import hello.aop.order.OrderRepository;
+import hello.aop.order.OrderService;
+import org.aspectj.lang.Aspects;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 로드 타임 위빙 모드 (./gradlew ltwTest 로만 실행된다. -javaagent:aspectjweaver.jar + META-INF/aop.xml)
+ * 스프링 컨텍스트도 프록시도 없이 new 로 만든 객체에 어드바이스가 적용되고,
+ * CallServiceV0 처럼 프록시로는 안 되던 내부 호출(this.internal())에도 적용된다.
+ */
+@Tag("ltw")
+@ExtendWith(OutputCaptureExtension.class)
+class LoadTimeWeavingTest {
+
+    @Test
+    void woven() {
+        assertThat(Aspects.hasAspect(CallLogAspect.class)).isTrue();
+    }
+
+    @Test
+    void internalCall(CapturedOutput output) {
+        CallServiceV0 callServiceV0 = new CallServiceV0();
+        assertThat(callServiceV0.getClass()).isEqualTo(CallServiceV0.class);
+
+        callServiceV0.external();
+
+        assertThat(output).contains("aop=void hello.aop.internalcall.CallServiceV0.external()");
+        assertThat(output).contains("aop=void hello.aop.internalcall.CallServiceV0.internal()");
+    }
+
+    @Test
+    void order(CapturedOutput output) {
+        new OrderService(new OrderRepository()).orderItem("itemA");
+
+        assertThat(output).contains("[before] void hello.aop.order.OrderService.orderItem(String)");
+        assertThat(output).contains("[after] void hello.aop.order.OrderService.orderItem(String)");
+    }
+
+    /**
+     * 내부 호출로 부른 @Retry, @Trace 메서드도 재시도/기록된다. (어드바이스는 호출 지점이 아니라 실행에 한 번만 걸린다)
+     */
+    @Test
+    void retryAndTrace(CapturedOutput output) {
+        FlakyService service = new FlakyService();
+
+        assertThat(service.external("item")).isEqualTo("ok");
+        assertThat(service.calls).isEqualTo(3);
+        assertThat(output).contains("[trace]").contains("FlakyService.find");
+    }
+
+    static class FlakyService {
+
+        private int calls;
+
+        public String external(String itemId) {
+            find(itemId);
+            return save(itemId);
+        }
+
+        @Retry(3)
+        public String save(String itemId) {
+            if (++calls < 3) {
+                throw new IllegalStateException("예외 발생");
+            }
+            return "ok";
+        }
+
+        @Trace(samplesPerSecond = 0)
+        public String find(String itemId) {
+            return "ok";
+        }
+    }
+}